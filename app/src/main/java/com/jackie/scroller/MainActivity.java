@@ -44,12 +44,18 @@ package com.jackie.scroller;
 
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
-import android.widget.ArrayAdapter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
 import android.widget.Toast;
-import com.jackie.refresh.RefreshAdapterView;
+import com.jackie.refresh.adapter.RefreshListAdapter;
 import com.jackie.refresh.impl.RefreshListView;
-import com.jackie.refresh.listener.OnLoadListener;
-import com.jackie.refresh.listener.OnRefreshListener;
+import com.jackie.refresh.paging.PagedDataSource;
+import com.jackie.refresh.paging.PagedLoader;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by on 16/5/11.
@@ -69,44 +75,63 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void setListView() {
-        final RefreshAdapterView refreshLayout = new RefreshListView(this);
-        String[] dataStrings = new String[20];
-        for (int i = 0; i < dataStrings.length; i++) {
-            dataStrings[i] = "item   " + i;
-        }
-
-        refreshLayout.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_list_item_1,
-                dataStrings));
-
-        refreshLayout.setOnRefreshListener(new OnRefreshListener() {
-
+        RefreshListView refreshLayout = new RefreshListView(this);
+        PagedLoader<String> loader = new PagedLoader<>(refreshLayout, new ItemAdapter(),
+                new ItemDataSource());
+        // 只保留可见区域前后各一页
+        loader.setPageWindow(1);
+        loader.setOnErrorListener(new PagedLoader.OnErrorListener() {
             @Override
-            public void onRefresh() {
-                Toast.makeText(getApplicationContext(), "refreshing", Toast.LENGTH_LONG).show();
-
-                refreshLayout.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        refreshLayout.refreshComplete();
-                    }
-                }, 1500);
+            public void onLoadError(int page, Exception e) {
+                Toast.makeText(getApplicationContext(), "load failed", Toast.LENGTH_LONG).show();
             }
         });
+        loader.refresh();
 
-        refreshLayout.setOnLoadListener(new OnLoadListener() {
-            @Override
-            public void onLoadMore() {
-                Toast.makeText(getApplicationContext(), "loading", Toast.LENGTH_LONG).show();
+        setContentView(refreshLayout);
+    }
 
-                refreshLayout.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        refreshLayout.loadCompute();
-                    }
-                }, 1500);
+    /**
+     * 模拟网络请求的数据源,在后台线程中执行
+     */
+    private static class ItemDataSource implements PagedDataSource<String> {
+        private static final int PAGE_SIZE = 20;
+        private static final int PAGE_COUNT = 5;
+
+        @Override
+        public List<String> loadPage(int page) throws Exception {
+            Thread.sleep(1500);
+            List<String> items = new ArrayList<>();
+            if (page >= PAGE_COUNT) {
+                return items;
             }
-        });
+            for (int i = page * PAGE_SIZE; i < (page + 1) * PAGE_SIZE; i++) {
+                items.add("item   " + i);
+            }
+            return items;
+        }
+    }
 
-        setContentView(refreshLayout);
+    private static class ItemAdapter extends RefreshListAdapter<String> {
+        @Override
+        public long getStableId(String item) {
+            return item.hashCode();
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            TextView textView = (TextView) convertView;
+            if (textView == null) {
+                textView = (TextView) LayoutInflater.from(parent.getContext()).inflate(android.R
+                        .layout.simple_list_item_1, parent, false);
+            }
+            textView.setText(getItem(position));
+            return textView;
+        }
     }
 }
@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.jackie.refresh;
+
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import com.jackie.refresh.impl.RefreshListView;
+
+/**
+ * 比较{@link RefreshLayoutBase}延迟创建Header View和Footer View前后的构造耗时
+ */
+public class RefreshLayoutBenchmark extends InstrumentationTestCase {
+    private static final String TAG = "RefreshLayoutBenchmark";
+
+    private static final int WARM_UP_COUNT = 20;
+    private static final int MEASURE_COUNT = 200;
+
+    public void testLazyConstructionIsCheaper() {
+        final Context context = getInstrumentation().getTargetContext();
+        final long[] result = new long[2];
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // 先预热,让类加载和布局解析的缓存都准备好
+                construct(context, WARM_UP_COUNT, false);
+                construct(context, WARM_UP_COUNT, true);
+
+                result[0] = construct(context, MEASURE_COUNT, false);
+                result[1] = construct(context, MEASURE_COUNT, true);
+            }
+        });
+
+        long lazyNanos = result[0];
+        long eagerNanos = result[1];
+        Log.i(TAG, "lazy: " + lazyNanos / MEASURE_COUNT + "ns/view, eager: "
+                + eagerNanos / MEASURE_COUNT + "ns/view");
+        assertTrue("lazy " + lazyNanos + "ns >= eager " + eagerNanos + "ns",
+                lazyNanos < eagerNanos);
+    }
+
+    /**
+     * 创建count个{@link RefreshListView}
+     *
+     * @param context
+     * @param count
+     * @param eager   为true时马上创建Header View和Footer View,和以前在构造方法里创建一样
+     * @return 总耗时,单位纳秒
+     */
+    private static long construct(Context context, int count, boolean eager) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            RefreshListView view = new RefreshListView(context);
+            if (eager) {
+                view.getHeaderView();
+                view.getFooterView();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.jackie.refresh;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.jackie.refresh.impl.RefreshListView;
+import com.jackie.refresh.listener.OnPullStateChangeListener;
+import com.jackie.refresh.listener.OnRefreshListener;
+
+/**
+ * 用真实的触摸事件驱动{@link RefreshLayoutBase}的拖动:onTouchEvent、Header View的显示和更新时间、
+ * 状态切换和箭头都走布局自己的代码,检查状态变化和拖动过程中的分配
+ */
+public class RefreshLayoutDragTest extends InstrumentationTestCase {
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+
+    private RefreshListView mView;
+    private int mTransitions;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final Context context = getInstrumentation().getTargetContext();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mView = new RefreshListView(context);
+                mView.setIndicatorEnabled(true);
+                mView.setOnRefreshListener(new OnRefreshListener() {
+                    @Override
+                    public void onRefresh() {
+                    }
+                });
+                mView.setOnPullStateChangeListener(new OnPullStateChangeListener() {
+                    @Override
+                    public void onPullStateChanged(int oldStatus, int newStatus) {
+                        mTransitions++;
+                    }
+                });
+                // 显示更新时间,Header View每次露出时都会经过更新时间的代码
+                mView.setLastUpdateTime(System.currentTimeMillis() - 5 * 60 * 1000L);
+                mView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                mView.layout(0, 0, WIDTH, HEIGHT);
+            }
+        });
+    }
+
+    public void testDragFlipsStatusAroundThreshold() {
+        final MotionEvent[] events = obtainWiggle();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mTransitions = 0;
+                drag(events, 0, events.length);
+            }
+        });
+        recycle(events);
+
+        // 越过阈值4次再回到阈值以内4次,最后回到初始位置
+        assertEquals(RefreshLayoutBase.STATUS_IDLE, mView.getStatus());
+        assertEquals(10, mTransitions);
+    }
+
+    public void testDragAllocatesNothingAfterWarmUp() {
+        assertEquals("objects allocated while dragging", 0, countDragAllocations());
+    }
+
+    public void testDragWithDefaultHeaderAllocatesNothingAfterWarmUp() {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // 换成默认的Header View:箭头、提示文字和更新时间都是布局中的子视图
+                mView.setIndicatorEnabled(false);
+                mView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                mView.layout(0, 0, WIDTH, HEIGHT);
+            }
+        });
+
+        assertEquals("objects allocated while dragging", 0, countDragAllocations());
+    }
+
+    /**
+     * 先完整拖动一次预热,再统计第二次拖动中ACTION_MOVE分配的对象数
+     */
+    @SuppressWarnings("deprecation")
+    private int countDragAllocations() {
+        final MotionEvent[] events = obtainWiggle();
+        final int[] allocations = new int[1];
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // 第一次拖动时创建和缓存需要的对象
+                drag(events, 0, events.length);
+
+                mView.onInterceptTouchEvent(events[0]);
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                drag(events, 1, events.length - 1);
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+                mView.onTouchEvent(events[events.length - 1]);
+            }
+        });
+        recycle(events);
+        return allocations[0];
+    }
+
+    /**
+     * 依次分发触摸事件,ACTION_DOWN和onInterceptTouchEvent()一样只交给它处理
+     */
+    private void drag(MotionEvent[] events, int from, int to) {
+        for (int i = from; i < to; i++) {
+            MotionEvent event = events[i];
+            if (event.getAction() == MotionEvent.ACTION_DOWN) {
+                mView.onInterceptTouchEvent(event);
+            } else {
+                mView.onTouchEvent(event);
+            }
+        }
+    }
+
+    /**
+     * 按下后慢慢下拉到阈值附近,在阈值两边来回拖动,然后推回去,最后取消。事件在分发之前全部创建好
+     */
+    private MotionEvent[] obtainWiggle() {
+        int threshold = mView.getHeaderView().getMeasuredHeight() / 2;
+        int[] sequence = new int[400];
+        int start = 100;
+        int index = 0;
+        sequence[index++] = start;
+        // 第一次移动5像素,之后每次10像素,来回拖动时不会正好停在阈值上
+        int y = start + 5;
+        sequence[index++] = y;
+        while (y < start + threshold - 20) {
+            y += 10;
+            sequence[index++] = y;
+        }
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                y += 10;
+                sequence[index++] = y;
+            }
+            for (int j = 0; j < 4; j++) {
+                y -= 10;
+                sequence[index++] = y;
+            }
+        }
+        // 推回去,超过初始位置的部分被忽略
+        y -= 5;
+        sequence[index++] = y;
+        while (y > 0) {
+            y -= 10;
+            sequence[index++] = y;
+        }
+
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent[] events = new MotionEvent[index + 1];
+        for (int i = 0; i < index; i++) {
+            int action = i == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_MOVE;
+            events[i] = MotionEvent.obtain(downTime, downTime + i * 16, action, 0, sequence[i], 0);
+        }
+        // 停在初始位置,取消时不需要回弹
+        events[index] = MotionEvent.obtain(downTime, downTime + index * 16,
+                MotionEvent.ACTION_CANCEL, 0, y, 0);
+        return events;
+    }
+
+    private static void recycle(MotionEvent[] events) {
+        for (MotionEvent event : events) {
+            event.recycle();
+        }
+    }
+}
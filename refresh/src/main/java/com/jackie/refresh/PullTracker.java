@@ -0,0 +1,110 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh;
+
+/**
+ * 手指拖动时的纯计算部分:根据移动的距离计算新的滚动位置和对应的状态。
+ * <p>
+ * 不依赖Android的类,每次计算都不分配对象,{@link RefreshLayoutBase}的ACTION_MOVE都经过这里。
+ * </p>
+ * Created by on 16/5/28.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+final class PullTracker {
+    /**
+     * 下拉时能到达的最小滚动位置(不含),即完全显示Header View时的位置
+     */
+    private int mMinScrollY;
+    /**
+     * Header View和Footer View都被隐藏时的滚动位置
+     */
+    private int mInitScrollY;
+
+    /**
+     * 设置滚动范围
+     *
+     * @param minScrollY  下拉时能到达的最小滚动位置(不含)
+     * @param initScrollY Header View和Footer View都被隐藏时的滚动位置
+     */
+    void setRange(int minScrollY, int initScrollY) {
+        mMinScrollY = minScrollY;
+        mInitScrollY = initScrollY;
+    }
+
+    /**
+     * 手指移动后新的滚动位置,下拉时不超过{@link #mMinScrollY},上拉时不超过{@link #mInitScrollY}
+     *
+     * @param currentY 当前的滚动位置
+     * @param distance 手指移动的距离,向下为正
+     * @return 新的滚动位置,不能移动时返回currentY
+     */
+    int pull(int currentY, int distance) {
+        int targetY = currentY - distance;
+        if (distance > 0 && targetY > mMinScrollY) {
+            return targetY;
+        } else if (distance < 0 && targetY <= mInitScrollY) {
+            // 上拉过程
+            return targetY;
+        }
+        return currentY;
+    }
+
+    /**
+     * 滚动位置对应的状态,超过Header View的一半时松开即可刷新
+     *
+     * @param scrollY 滚动位置
+     * @return {@link RefreshLayoutBase#STATUS_RELEASE_TO_REFRESH},
+     * {@link RefreshLayoutBase#STATUS_PULL_TO_REFRESH}或者{@link RefreshLayoutBase#STATUS_IDLE}
+     */
+    int statusFor(int scrollY) {
+        int slop = mInitScrollY / 2;
+        if (scrollY > 0 && scrollY < slop) {
+            return RefreshLayoutBase.STATUS_RELEASE_TO_REFRESH;
+        } else if (scrollY > slop && scrollY < mInitScrollY) {
+            return RefreshLayoutBase.STATUS_PULL_TO_REFRESH;
+        }
+        return RefreshLayoutBase.STATUS_IDLE;
+    }
+}
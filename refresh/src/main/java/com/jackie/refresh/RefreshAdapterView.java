@@ -42,10 +42,17 @@
 
 package com.jackie.refresh;
 
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.os.Build;
 import android.util.AttributeSet;
+import android.view.View;
 import android.widget.AbsListView;
+import android.widget.BaseAdapter;
 import android.widget.ListAdapter;
+import android.widget.ListView;
+import com.jackie.refresh.adapter.ListUpdateCallback;
+import com.jackie.refresh.adapter.RefreshListAdapter;
 
 /**
  * Created by on 16/5/12.
@@ -54,6 +61,10 @@ import android.widget.ListAdapter;
  * @version 1.0
  */
 public abstract class RefreshAdapterView<T extends AbsListView> extends RefreshLayoutBase<T>{
+    /**
+     * 低版本估算fling距离时使用的减速度(像素/秒^2)
+     */
+    private static final int FLING_DECELERATION = 4000;
 
     public RefreshAdapterView(Context context) {
         this(context, null);
@@ -64,10 +75,152 @@ public abstract class RefreshAdapterView<T extends AbsListView> extends RefreshL
     }
 
     public void setAdapter(ListAdapter adapter) {
+        ListAdapter oldAdapter = mContentView.getAdapter();
+        if (oldAdapter instanceof RefreshListAdapter) {
+            ((RefreshListAdapter) oldAdapter).setRowUpdater(null);
+        }
+        if (adapter instanceof RefreshListAdapter) {
+            // 只有内容变化时,直接重新绑定可见的行
+            ((RefreshListAdapter) adapter).setRowUpdater(mVisibleRowUpdater);
+        }
         mContentView.setAdapter(adapter);
     }
 
+    /**
+     * 重新绑定内容变化的可见行,不可见的行在滚动出来时自然会绑定新的数据。
+     * {@link RefreshListAdapter}只在视图类型没有变化时回调onChanged,所以可以直接复用可见行的View。
+     * 有插入删除时记录第一个可见行移动到的位置,分发结束后刷新一次列表,并让它停留在原来的位置
+     */
+    private final ListUpdateCallback mVisibleRowUpdater = new ListUpdateCallback() {
+        /**
+         * 这一次分发是否有插入或者删除
+         */
+        private boolean hasStructuralChanges;
+        /**
+         * 分发前的第一个可见行在更新后的位置,没有可见行时为-1
+         */
+        private int mAnchorPosition;
+        private int mAnchorTop;
+
+        @Override
+        public void onInserted(int position, int count) {
+            beginStructuralChange();
+            if (mAnchorPosition >= 0 && position <= mAnchorPosition) {
+                mAnchorPosition += count;
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            beginStructuralChange();
+            if (mAnchorPosition < 0 || position > mAnchorPosition) {
+                return;
+            }
+            if (position + count <= mAnchorPosition) {
+                mAnchorPosition -= count;
+            } else {
+                // 第一个可见行被删除了,停在删除的位置
+                mAnchorPosition = position;
+            }
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            if (hasStructuralChanges) {
+                // 分发结束后整个列表都会重新绑定
+                return;
+            }
+            ListAdapter adapter = mContentView.getAdapter();
+            int first = mContentView.getFirstVisiblePosition();
+            int start = Math.max(position, first);
+            int end = Math.min(position + count, first + mContentView.getChildCount());
+            for (int i = start; i < end; i++) {
+                View child = mContentView.getChildAt(i - first);
+                if (adapter.getView(i, child, mContentView) != child) {
+                    // Adapter没有复用传入的View,只能刷新整个列表
+                    notifyAdapterChanged();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void onDispatchFinished() {
+            if (!hasStructuralChanges) {
+                return;
+            }
+            hasStructuralChanges = false;
+            notifyAdapterChanged();
+            if (mAnchorPosition >= 0) {
+                setFirstVisiblePosition(mAnchorPosition, mAnchorTop);
+            }
+        }
+
+        private void beginStructuralChange() {
+            if (hasStructuralChanges) {
+                return;
+            }
+            hasStructuralChanges = true;
+            View child = mContentView.getChildAt(0);
+            mAnchorPosition = child == null ? -1 : mContentView.getFirstVisiblePosition();
+            mAnchorTop = child == null ? 0 : child.getTop();
+        }
+
+        private void notifyAdapterChanged() {
+            ListAdapter adapter = mContentView.getAdapter();
+            if (adapter instanceof BaseAdapter) {
+                ((BaseAdapter) adapter).notifyDataSetChanged();
+            }
+        }
+    };
+
     public ListAdapter getAdapter() {
         return mContentView.getAdapter();
     }
+
+    /**
+     * 第一个可见行前面插入或者删除了条目后调用,保持第一个可见行停留在原来的位置,不会跳动
+     *
+     * @param delta 第一个可见行前面增加的条目数,删除时为负数
+     */
+    public void offsetFirstVisiblePosition(int delta) {
+        if (delta == 0) {
+            return;
+        }
+        View child = mContentView.getChildAt(0);
+        setFirstVisiblePosition(Math.max(mContentView.getFirstVisiblePosition() + delta, 0),
+                child == null ? 0 : child.getTop());
+    }
+
+    /**
+     * 下一次布局时把position放在第一个可见行,ListView同时保持它的上边缘位置
+     *
+     * @param position 第一个可见行的位置
+     * @param top      它的上边缘相对于列表的位置
+     */
+    private void setFirstVisiblePosition(int position, int top) {
+        if (mContentView instanceof ListView) {
+            ((ListView) mContentView).setSelectionFromTop(position, top);
+        } else {
+            mContentView.setSelection(position);
+        }
+    }
+
+    @Override
+    protected void flingContent(int velocityY) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            flingContentV21(velocityY);
+        } else {
+            // 低版本没有fling(),按匀减速估算滚动距离和时长
+            int speed = Math.abs(velocityY);
+            int duration = (int) (1000L * speed / FLING_DECELERATION);
+            int distance = (int) ((long) velocityY * speed / (2 * FLING_DECELERATION));
+            mContentView.smoothScrollBy(distance, duration);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void flingContentV21(int velocityY) {
+        mContentView.fling(velocityY);
+    }
 }
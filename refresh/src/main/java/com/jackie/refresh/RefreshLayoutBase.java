@@ -44,20 +44,36 @@ package com.jackie.refresh;
 
 import android.content.Context;
 import android.graphics.Color;
+import android.os.SystemClock;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.animation.RotateAnimation;
 import android.widget.*;
+import com.jackie.refresh.anim.FrameAnimator;
+import com.jackie.refresh.anim.FrameScheduler;
+import com.jackie.refresh.anim.VsyncFrameScheduler;
+import com.jackie.refresh.listener.OnContentScrollListener;
+import com.jackie.refresh.listener.OnFrameMetricsListener;
 import com.jackie.refresh.listener.OnLoadListener;
+import com.jackie.refresh.listener.OnLoadPreviousListener;
+import com.jackie.refresh.listener.OnPullProgressListener;
+import com.jackie.refresh.listener.OnPullStateChangeListener;
 import com.jackie.refresh.listener.OnRefreshListener;
+import com.jackie.refresh.metrics.FrameMetricsTracker;
+import com.jackie.refresh.trace.RefreshTracer;
+import com.jackie.refresh.view.RefreshIndicatorView;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
 
 /**
  * Created by on 16/5/11.
@@ -67,8 +83,7 @@ import java.util.Date;
  * @version 1.0
  */
 public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implements AbsListView
-        .OnScrollListener {
-    private static final String TAG = "RefreshLayoutBase";
+        .OnScrollListener, NestedScrollingParent {
 
     /**
      * 内容视图,即用户触摸导致下拉刷新,上拉加载的主视图,比如ListView, GridView等。
@@ -76,9 +91,40 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
     protected T mContentView;
 
     /**
-     * 滚动控制器
+     * 默认的滚动动画时长(毫秒)
      */
-    protected Scroller mScroller;
+    private static final int DEFAULT_SCROLL_DURATION = 250;
+
+    /**
+     * 滚动动画,由垂直同步信号驱动
+     */
+    protected FrameAnimator mScrollAnimator;
+    /**
+     * 拖动时调度帧耗时统计,和滚动动画共用同一个调度器
+     */
+    private FrameScheduler mFrameScheduler;
+    /**
+     * 上一次拖动的帧之后位置是否变化过
+     */
+    private boolean isDragMoved;
+
+    /**
+     * 箭头旋转动画的时长(毫秒)
+     */
+    private static final int ARROW_ROTATE_DURATION = 100;
+
+    /**
+     * 箭头的旋转动画,在Header View创建时创建,之后一直复用,状态来回切换时从当前角度转向新的目标
+     */
+    private FrameAnimator mArrowAnimator;
+    /**
+     * 回弹动画是否被新的触摸事件打断了
+     */
+    private boolean isSettleInterrupted;
+    /**
+     * 手指是否正在拖动
+     */
+    private boolean isBeingDragged;
     /**
      * 下拉刷新时显示Header View
      */
@@ -100,10 +146,81 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
      * Header View中的文本标签
      */
     protected TextView mTipsTxt;
+    /**
+     * Header View中松开刷新的文本标签,和{@link #mTipsTxt}重叠,拖动时只切换两者的可见性,不修改文字
+     */
+    protected TextView mReleaseTipsTxt;
     /**
      * Header View中的时间标签
      */
     protected TextView mTimeTxt;
+    /**
+     * 使用{@link RefreshIndicatorView}作为Header View时的指示器,否则为null
+     */
+    protected RefreshIndicatorView mIndicatorView;
+    /**
+     * 是否使用{@link RefreshIndicatorView}代替布局文件中的Header View
+     */
+    private boolean isIndicatorEnabled;
+
+    /**
+     * 更新时间显示为具体的日期和时间
+     */
+    public static final int TIME_STAMP_ABSOLUTE = 0;
+    /**
+     * 更新时间显示为相对现在的时间,比如"3 分钟前"
+     */
+    public static final int TIME_STAMP_RELATIVE = 1;
+    /**
+     * 相对时间的刷新间隔
+     */
+    private static final long TIME_STAMP_UPDATE_INTERVAL = 60 * 1000L;
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    /**
+     * 每个线程缓存一个日期格式,避免每次都创建和设置格式
+     */
+    private static final ThreadLocal<SimpleDateFormat> sTimeStampFormat = new
+            ThreadLocal<SimpleDateFormat>() {
+                @Override
+                protected SimpleDateFormat initialValue() {
+                    return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+                }
+            };
+    /**
+     * 更新时间的显示方式,{@link #TIME_STAMP_ABSOLUTE}或者{@link #TIME_STAMP_RELATIVE}
+     */
+    private int mTimeStampMode = TIME_STAMP_ABSOLUTE;
+    /**
+     * 上次刷新完成的时间,为0时表示还没有刷新过
+     */
+    private long mLastUpdateTime;
+    /**
+     * Header View上正在显示的更新时间对应的值,没有变化时不重新格式化
+     */
+    private long mShownTimeStampKey = Long.MIN_VALUE;
+    private final Date mTimeStampDate = new Date();
+    /**
+     * 更新时间前面的文字,创建Header View时读取一次,拼接时不再访问资源
+     */
+    private String mLastUpdateLabel;
+    /**
+     * Header View是否可见,只在可见时格式化和刷新更新时间
+     */
+    private boolean isHeaderVisible;
+    /**
+     * Header View可见时定时刷新相对时间
+     */
+    private final Runnable mTimeStampUpdater = new Runnable() {
+        @Override
+        public void run() {
+            updateHeaderTimeStamp();
+            if (isHeaderVisible && mTimeStampMode == TIME_STAMP_RELATIVE) {
+                postDelayed(this, TIME_STAMP_UPDATE_INTERVAL);
+            }
+        }
+    };
     /**
      * Header View的高度
      */
@@ -126,6 +243,10 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
      * 触摸滑动Y坐标上的偏移量
      */
     protected int mYOffset;
+    /**
+     * 根据手指移动的距离计算滚动位置和状态
+     */
+    private final PullTracker mPullTracker = new PullTracker();
 
     /**
      * 箭头是否向上
@@ -156,6 +277,48 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
      */
     protected int mCurrentStatus = STATUS_IDLE;
 
+    /**
+     * 预加载距离的单位: 距离最后一项的条目数
+     */
+    public static final int PREFETCH_UNIT_ITEMS = 0;
+    /**
+     * 预加载距离的单位: 距离内容底部的像素值
+     */
+    public static final int PREFETCH_UNIT_PIXELS = 1;
+    /**
+     * 预加载距离,小于等于0时不预加载,只有上拉到底部才加载更多
+     */
+    protected int mPrefetchDistance;
+    /**
+     * 预加载距离的单位,{@link #PREFETCH_UNIT_ITEMS}或者{@link #PREFETCH_UNIT_PIXELS}
+     */
+    protected int mPrefetchUnit = PREFETCH_UNIT_ITEMS;
+    /**
+     * 是否有加载更多的操作正在进行,同一时间最多只有一个加载
+     */
+    protected boolean isLoadingMore;
+    /**
+     * 上一次触发加载更多时的条目总数,用来避免同一页被重复加载。加载失败后只有刷新或者
+     * {@link #retryLoadMore()}才会重新加载
+     */
+    protected int mLoadedItemCount = -1;
+    /**
+     * 数据源已经没有更多数据,下一次刷新前不再触发加载更多
+     */
+    protected boolean isNoMoreData;
+    /**
+     * 第一个可见项的位置小于等于该值时加载前一页
+     */
+    protected int mLoadPreviousThreshold;
+    /**
+     * 是否有加载前一页的操作正在进行
+     */
+    protected boolean isLoadingPrevious;
+    /**
+     * 上一次触发加载前一页时的条目总数,用来避免同一页被重复加载
+     */
+    protected int mLoadedPreviousCount = -1;
+
     /**
      * 刷新监听
      */
@@ -164,6 +327,81 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
      * 加载更多监听
      */
     protected OnLoadListener mOnLoadListener;
+    /**
+     * 加载前一页监听
+     */
+    protected OnLoadPreviousListener mOnLoadPreviousListener;
+    /**
+     * 状态变化监听
+     */
+    protected OnPullStateChangeListener mOnPullStateChangeListener;
+    /**
+     * 下拉距离监听
+     */
+    protected OnPullProgressListener mOnPullProgressListener;
+    /**
+     * 内容视图滚动监听
+     */
+    protected OnContentScrollListener mOnContentScrollListener;
+    /**
+     * 最后一次回调{@link OnPullProgressListener}的下拉距离
+     */
+    private int mLastPullOffset;
+    /**
+     * 触摸事件和状态的跟踪器,默认为null,不跟踪
+     */
+    protected RefreshTracer mTracer;
+    /**
+     * 动画帧耗时统计,默认为null,不统计
+     */
+    protected FrameMetricsTracker mFrameMetrics;
+
+    /**
+     * 通过滚动整个布局来显示Header View和Footer View
+     */
+    public static final int REVEAL_MODE_SCROLL = 0;
+    /**
+     * 通过设置子视图的translationY来显示Header View和Footer View,拖动时内容视图使用硬件层,
+     * 只需要修改显示列表的属性,不需要重绘整个列表
+     */
+    public static final int REVEAL_MODE_TRANSLATION = 1;
+    /**
+     * 显示Header View和Footer View的方式
+     */
+    protected int mRevealMode = REVEAL_MODE_SCROLL;
+    /**
+     * {@link #REVEAL_MODE_TRANSLATION}模式下等效的Y轴滚动值
+     */
+    private int mTranslationScrollY;
+    /**
+     * 内容视图当前是否使用了硬件层
+     */
+    private boolean isContentLayerEnabled;
+
+    /**
+     * 手指抬起时按当前速度继续滑动的时间(秒),用来预测快速下拉后的位置
+     */
+    private static final float FLING_PROJECTION_SECONDS = 0.1f;
+    /**
+     * 跟踪手指拖动的速度
+     */
+    private VelocityTracker mVelocityTracker;
+    private int mMinimumFlingVelocity;
+    private int mMaximumFlingVelocity;
+    /**
+     * 向上快速滑动收起Header View后,交给内容视图继续滚动的速度
+     */
+    private int mPendingContentFling;
+
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper;
+    /**
+     * 内容视图是否正在进行嵌套滚动,此时由嵌套滚动回调处理下拉,不再拦截触摸事件
+     */
+    private boolean isNestedScrollInProgress;
+    /**
+     * 嵌套滚动结束时手指的速度(像素/秒),向下为正
+     */
+    private float mNestedFlingVelocity;
 
     public RefreshLayoutBase(Context context) {
         this(context, null);
@@ -176,7 +414,13 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
     public RefreshLayoutBase(Context context, AttributeSet attrs) {
         super(context, attrs);
         // 初始化滚动控制器
-        mScroller = new Scroller(context);
+        mFrameScheduler = new VsyncFrameScheduler(this);
+        mScrollAnimator = new FrameAnimator(mFrameScheduler);
+        mScrollAnimator.setListener(mScrollAnimatorListener);
+        mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
         // 获取屏幕高度
         mScreenHeight = context.getResources().getDisplayMetrics().heightPixels;
         // header的高度为屏幕高度的1/4
@@ -187,20 +431,52 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
     }
 
     /**
-     * 初始化布局
+     * 初始化布局,只创建内容视图,Header View和Footer View在第一次需要时才创建
      *
      * @param context
      */
     private void initLayout(Context context) {
-        // 设置header view
-        setupHeaderView(context);
         // 设置内容视图
         setupContentView(context);
         // 设置内容视图的布局参数
         setDefaultContentLayoutParam();
         addView(mContentView);
-        // 设置Footer View
-        setupFooterView(context);
+    }
+
+    /**
+     * Header View还没有创建时创建它,在第一次下拉时调用
+     */
+    protected void ensureHeaderView() {
+        if (mHeaderView == null) {
+            setupHeaderView(getContext());
+            layoutAddedChild(mHeaderView);
+        }
+    }
+
+    /**
+     * Footer View还没有创建时创建它,在第一次显示时调用
+     */
+    protected void ensureFooterView() {
+        if (mFooterView == null) {
+            setupFooterView(getContext());
+            layoutAddedChild(mFooterView);
+        }
+    }
+
+    /**
+     * 已经布局过时马上测量新添加的子视图并重新摆放所有子视图,不用等下一次布局。
+     * 第一次下拉时创建的Header View马上就有高度,这一次拖动的距离不会因为下拉范围还是0而被丢弃
+     *
+     * @param child 新添加的Header View或者Footer View
+     */
+    private void layoutAddedChild(View child) {
+        if (getWidth() == 0) {
+            // 还没有布局过,第一次布局时一起测量
+            return;
+        }
+        measureChild(child, MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        onLayout(false, getLeft(), getTop(), getRight(), getBottom());
     }
 
     /**
@@ -209,21 +485,34 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
      * @param context
      */
     private void setupHeaderView(Context context) {
-        Log.d(TAG, "setupHeaderView: ");
-        mHeaderView = LayoutInflater.from(context).inflate(R.layout.header_refresh, this, false);
+        if (isIndicatorEnabled) {
+            mIndicatorView = new RefreshIndicatorView(context);
+            mHeaderView = mIndicatorView;
+        } else {
+            mHeaderView = LayoutInflater.from(context).inflate(R.layout.header_refresh, this, false);
+        }
         mHeaderView.setLayoutParams(new ViewGroup.LayoutParams(LayoutParams.MATCH_PARENT,
                 mHeaderHeight));
         mHeaderView.setBackgroundColor(Color.RED);
         // Header View的高度为屏幕高度的1/4,但是,它只有100px是有效的显示区域, 其余为paddingTop,
         // 这样是为达到下拉的效果
         mHeaderView.setPadding(0, mHeaderHeight - 100, 0, 0);
-        addView(mHeaderView);
+        // Header View在最上面,布局后初始滚动位置随之更新
+        addView(mHeaderView, 0);
+        mLastUpdateLabel = getResources().getString(R.string.txt_last_update_time);
 
+        if (mIndicatorView != null) {
+            return;
+        }
         // 初始化Header View中的子视图
         mArrowImg = (ImageView) mHeaderView.findViewById(R.id.img_arrow_image);
         mRefreshProgress = (ProgressBar) mHeaderView.findViewById(R.id.progress_refresh);
         mTipsTxt = (TextView) mHeaderView.findViewById(R.id.txt_pull_to_refresh);
+        mReleaseTipsTxt = (TextView) mHeaderView.findViewById(R.id.txt_release_to_refresh);
         mTimeTxt = (TextView) mHeaderView.findViewById(R.id.txt_update_at);
+
+        mArrowAnimator = new FrameAnimator(new VsyncFrameScheduler(mArrowImg));
+        mArrowAnimator.setListener(mArrowAnimatorListener);
     }
 
     /**
@@ -238,7 +527,7 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
      */
     protected void setDefaultContentLayoutParam() {
         ViewGroup.LayoutParams params = new ViewGroup.LayoutParams(LayoutParams.MATCH_PARENT,
-                LayoutParams.WRAP_CONTENT);
+                LayoutParams.MATCH_PARENT);
         mContentView.setLayoutParams(params);
     }
 
@@ -257,13 +546,49 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
     }
 
     public View getHeaderView() {
+        ensureHeaderView();
         return mHeaderView;
     }
 
     public View getFooterView() {
+        ensureFooterView();
         return mFooterView;
     }
 
+    /**
+     * 设置是否使用{@link RefreshIndicatorView}作为Header View。指示器直接在Canvas上绘制箭头、进度圈和文字,
+     * 拖动过程中不会触发重新布局。Header View已经创建时会被替换
+     *
+     * @param enabled 为true时使用{@link RefreshIndicatorView},否则使用布局文件中的Header View
+     */
+    public void setIndicatorEnabled(boolean enabled) {
+        if (isIndicatorEnabled == enabled) {
+            return;
+        }
+        isIndicatorEnabled = enabled;
+        if (mHeaderView != null) {
+            removeView(mHeaderView);
+            mHeaderView = null;
+            mIndicatorView = null;
+            if (mArrowAnimator != null) {
+                mArrowAnimator.cancel();
+                mArrowAnimator = null;
+            }
+            isArrowUp = false;
+            mShownTimeStampKey = Long.MIN_VALUE;
+            mArrowImg = null;
+            mRefreshProgress = null;
+            mTipsTxt = null;
+            mReleaseTipsTxt = null;
+            mTimeTxt = null;
+            ensureHeaderView();
+        }
+    }
+
+    public boolean isIndicatorEnabled() {
+        return isIndicatorEnabled;
+    }
+
     public void setOnRefreshListener(OnRefreshListener onRefreshListener) {
         this.mOnRefreshListener = onRefreshListener;
     }
@@ -272,206 +597,933 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
         this.mOnLoadListener = onLoadListener;
     }
 
-    @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        // MeasureSpec中的宽度值
-        int width = MeasureSpec.getSize(widthMeasureSpec);
-        // 初始化组件的总高度
-        int finalHeight = 0;
-
-        for (int i = 0; i < getChildCount(); i++) {
-            View childView = getChildAt(i);
-            // 测量没有子视图
-            measureChild(childView, widthMeasureSpec, heightMeasureSpec);
-            // 累加子视图的测量出来的高度,以得到本组件的总高度
-            finalHeight += childView.getMeasuredHeight();
-        }
-
-        // 设置该下拉组件的尺寸
-        setMeasuredDimension(width, finalHeight);
+    /**
+     * 设置加载前一页的监听,用于聊天记录这类从中间开始显示的列表。滚动到接近顶部时回调,
+     * 新的条目插入到开头后第一个可见行保持不动;滚动到最顶端后继续下拉仍然是下拉刷新
+     *
+     * @param listener 加载前一页监听,前面没有更多数据时设置为null
+     */
+    public void setOnLoadPreviousListener(OnLoadPreviousListener listener) {
+        mOnLoadPreviousListener = listener;
     }
 
-    @Override
-    protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        int left = getPaddingLeft();
-        int top = getPaddingTop();
-        for (int i = 0; i < getChildCount(); i++) {
-            View child = getChildAt(i);
-            child.layout(left, top, child.getMeasuredWidth(), child.getMeasuredHeight() + top);
-            top += child.getMeasuredHeight();
-        }
-
-        // 计算初始化滑动的y轴距离
-        mInitScrollY = mHeaderView.getMeasuredHeight() + getPaddingTop();
-        // 滑动到Header View高度的位置,从面达到隐藏header View的效果
-        scrollTo(0, mInitScrollY);
+    /**
+     * 设置加载前一页的距离
+     *
+     * @param threshold 第一个可见项的位置小于等于该值时加载前一页,默认为0
+     */
+    public void setLoadPreviousThreshold(int threshold) {
+        mLoadPreviousThreshold = threshold;
     }
 
-    @Override
-    public void onScrollStateChanged(AbsListView view, int scrollState) {
-
+    public int getLoadPreviousThreshold() {
+        return mLoadPreviousThreshold;
     }
 
-    @Override
-    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int
-            totalItemCount) {
-        // 用户设置了加载更多监听器,且到了最底部,并且是上拉操作,那么执行加载更多操作
-        if (mOnLoadListener != null && isBottom()
-                && mScroller.getCurrY() <= mInitScrollY
-                && mYOffset < 0
-                && mCurrentStatus == STATUS_IDLE) {
-            // 显示Footer View
-            showFooterView();
-            doLoadMore();
-            mYOffset = 0;
-        }
+    /**
+     * 设置跟踪器,用于调试触摸事件和状态变化,设置为null时关闭跟踪
+     *
+     * @param tracer 跟踪器,比如{@link com.jackie.refresh.trace.RingBufferTracer}
+     */
+    public void setTracer(RefreshTracer tracer) {
+        this.mTracer = tracer;
     }
 
-    @Override
-    public void computeScroll() {
-        // 滚动还没有完成需要继续滚动,直到computeScrollOffset()返回为false滚动完成
-        if (mScroller.computeScrollOffset()) {
-            // View滚动到当前滚动控制器的(x, y)坐标上
-            scrollTo(mScroller.getCurrX(), mScroller.getCurrY());
-            // 请求
-            postInvalidate();
-        }
+    public RefreshTracer getTracer() {
+        return mTracer;
     }
 
-    @Override
-    public boolean onInterceptTouchEvent(MotionEvent ev) {
-        Log.d(TAG, "onInterceptTouchEvent() called with: " + "ev = [" + ev.toString() + "]");
-        // 获取触摸事件的类型
-        final int action = MotionEventCompat.getActionMasked(ev);
-        if (action == MotionEvent.ACTION_CANCEL || action == MotionEvent.ACTION_UP) {
-            return false;
-        }
-        switch (action) {
-            case MotionEvent.ACTION_DOWN:
-                mLastY = (int) ev.getRawY();
-                break;
-
-            case MotionEvent.ACTION_MOVE:
-                mYOffset = (int) ev.getRawX() - mLastY;
-                // 如果拉到了顶部,并且是下拉,则拦截触摸事件,并转到onTouchEvent()来处理下拉刷新事件
-                if (isTop() && mYOffset > 0) {
-                    return true;
-                }
-                break;
-        }
-        return false;
+    /**
+     * 设置状态变化监听,只在状态真正发生变化时回调
+     *
+     * @param listener 状态变化监听
+     */
+    public void setOnPullStateChangeListener(OnPullStateChangeListener listener) {
+        mOnPullStateChangeListener = listener;
     }
 
-    @Override
-    public boolean onTouchEvent(MotionEvent event) {
-        Log.d(TAG, "onTouchEvent() called with: " + "event = [" + event.toString() + "]");
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_MOVE:   // 滑动事件
-                // 获取当前触摸的y轴坐标
-                int currentY = (int) event.getRawY();
-                // 移动的偏移量
-                mYOffset = currentY - mLastY;
-                if (mCurrentStatus != STATUS_LOADING) {
-                    // 在Y轴方向移动该控件
-                    changeScrollY(mYOffset);
-                }
-
-                // 旋转Header View中的箭头图标
-                rotateHeaderArrow();
-                // 修改Header View中的文本信息
-                changeTips();
-                // mLastY设置为这次的Y轴坐标
-                mLastY = currentY;
-                break;
+    /**
+     * 设置下拉距离监听,拖动和回弹的每一帧都会回调,用于自定义Header View的动画
+     *
+     * @param listener 下拉距离监听
+     */
+    public void setOnPullProgressListener(OnPullProgressListener listener) {
+        mOnPullProgressListener = listener;
+    }
 
-            case MotionEvent.ACTION_UP:
-                if (isTop()) {
-                    // 下拉刷新的具体操作
-                    doRefresh();
-                }
+    /**
+     * 设置内容视图的滚动监听,用于根据可见范围管理数据
+     *
+     * @param listener 内容视图滚动监听
+     */
+    public void setOnContentScrollListener(OnContentScrollListener listener) {
+        mOnContentScrollListener = listener;
+    }
 
-                break;
-            default:
-                break;
-        }
-//        return super.onTouchEvent(event);
-        return true;
+    /**
+     * @return 当前状态,比如{@link #STATUS_IDLE}
+     */
+    public int getStatus() {
+        return mCurrentStatus;
     }
 
     /**
-     * 修改y轴上的滚动值,从而实现Header View被下拉的效果
+     * 设置帧耗时统计的监听器,设置后开始统计下拉、回弹、刷新完成和Footer View动画的帧耗时和丢帧数,
+     * 设置为null时停止统计
      *
-     * @param distance 滚动的偏移量(偏移距离)
+     * @param listener 每次动画结束时的回调
      */
-    private void changeScrollY(int distance) {
-        int currentY = getScrollY();
-        if (distance > 0 && currentY - distance > getPaddingTop()) {
-            scrollBy(0, -distance);
-        } else if (distance < 0 && currentY - distance <= mInitScrollY) {
-            // 上拉过程
-            scrollBy(0, -distance);
-        }
-
-        currentY = getScrollY();
-        int slop = mInitScrollY / 2;
-        if (currentY > 0 && currentY < slop) {
-            mCurrentStatus = STATUS_RELEASE_TO_REFRESH;
-        } else if (currentY > slop && currentY < mInitScrollY) {
-            mCurrentStatus = STATUS_PULL_TO_REFRESH;
-        } else {
-            mCurrentStatus = STATUS_IDLE;
-        }
+    public void setOnFrameMetricsListener(OnFrameMetricsListener listener) {
+        mFrameMetrics = listener == null ? null : new FrameMetricsTracker(listener);
     }
 
-    private void rotateHeaderArrow() {
-        Log.d(TAG, "rotateHeaderArrow() called with: mCurrentStatus = " + mCurrentStatus);
-        if (mCurrentStatus == STATUS_REFRESHING) {
+    /**
+     * @return 帧耗时统计,没有设置{@link OnFrameMetricsListener}时返回null
+     */
+    public FrameMetricsTracker getFrameMetrics() {
+        return mFrameMetrics;
+    }
+
+    /**
+     * 设置预加载距离,滚动到距离末尾不足该距离时提前回调{@link OnLoadListener#onLoadMore()},
+     * 而不需要等到最后一项可见并且上拉
+     *
+     * @param distance 预加载距离,小于等于0时关闭预加载
+     * @param unit     距离的单位,{@link #PREFETCH_UNIT_ITEMS}或者{@link #PREFETCH_UNIT_PIXELS}
+     */
+    public void setPrefetchDistance(int distance, int unit) {
+        if (unit != PREFETCH_UNIT_ITEMS && unit != PREFETCH_UNIT_PIXELS) {
+            throw new IllegalArgumentException("Unknown prefetch unit: " + unit);
+        }
+        mPrefetchDistance = distance;
+        mPrefetchUnit = unit;
+    }
+
+    public int getPrefetchDistance() {
+        return mPrefetchDistance;
+    }
+
+    public int getPrefetchUnit() {
+        return mPrefetchUnit;
+    }
+
+    /**
+     * 设置显示Header View和Footer View的方式,两种方式下{@link #getPullScrollY()}的含义相同
+     *
+     * @param revealMode {@link #REVEAL_MODE_SCROLL}或者{@link #REVEAL_MODE_TRANSLATION}
+     */
+    public void setRevealMode(int revealMode) {
+        if (revealMode != REVEAL_MODE_SCROLL && revealMode != REVEAL_MODE_TRANSLATION) {
+            throw new IllegalArgumentException("Unknown reveal mode: " + revealMode);
+        }
+        if (revealMode == mRevealMode) {
+            return;
+        }
+        int pullScrollY = getPullScrollY();
+        mRevealMode = revealMode;
+        if (revealMode == REVEAL_MODE_TRANSLATION) {
+            // 布局固定在初始位置,由子视图的平移来显示Header View和Footer View
+            scrollTo(getScrollX(), mInitScrollY);
+            mTranslationScrollY = mInitScrollY;
+        } else {
+            applyChildTranslation(0);
+            enableContentLayer(false);
+        }
+        setPullScrollY(pullScrollY);
+    }
+
+    public int getRevealMode() {
+        return mRevealMode;
+    }
+
+    /**
+     * 获取等效的Y轴滚动值,等于{@link #mInitScrollY}时Header View和Footer View都被隐藏,
+     * 小于它时显示Header View,大于它时显示Footer View
+     *
+     * @return 等效的Y轴滚动值
+     */
+    protected int getPullScrollY() {
+        return mRevealMode == REVEAL_MODE_TRANSLATION ? mTranslationScrollY : getScrollY();
+    }
+
+    /**
+     * 设置等效的Y轴滚动值,根据{@link #mRevealMode}滚动整个布局或者平移子视图
+     *
+     * @param y 等效的Y轴滚动值
+     */
+    protected void setPullScrollY(int y) {
+        if (mRevealMode == REVEAL_MODE_TRANSLATION) {
+            if (y == mTranslationScrollY) {
+                return;
+            }
+            mTranslationScrollY = y;
+            applyChildTranslation(mInitScrollY - y);
+        } else {
+            scrollTo(getScrollX(), y);
+        }
+        dispatchPullProgress(mInitScrollY - y);
+    }
+
+    /**
+     * 下拉距离变化时更新指示器并回调{@link OnPullProgressListener}
+     *
+     * @param offset 下拉的距离
+     */
+    private void dispatchPullProgress(int offset) {
+        if (offset == mLastPullOffset) {
+            return;
+        }
+        mLastPullOffset = offset;
+        boolean headerVisible = offset > 0;
+        if (headerVisible != isHeaderVisible) {
+            isHeaderVisible = headerVisible;
+            onHeaderVisibilityChanged(headerVisible);
+        }
+        if (mIndicatorView != null && mInitScrollY > 0) {
+            // 下拉超过Header View高度的一半时进度为1,和松开即可刷新的判断一致
+            mIndicatorView.setProgress(offset * 2f / mInitScrollY);
+        }
+        if (mOnPullProgressListener != null) {
+            mOnPullProgressListener.onPullProgress(offset);
+        }
+    }
+
+    /**
+     * Header View开始露出或者完全隐藏。这里在拖动的路径上,不格式化文字:更新时间变化时已经提前格式化好,
+     * 只有相对时间跨过了分钟时才在下一次消息循环中重新格式化
+     *
+     * @param visible 是否可见
+     */
+    private void onHeaderVisibilityChanged(boolean visible) {
+        removeCallbacks(mTimeStampUpdater);
+        if (!visible) {
+            return;
+        }
+        if (mHeaderView != null && mLastUpdateTime != 0 && getTimeStampKey() != mShownTimeStampKey) {
+            post(mTimeStampUpdater);
+        } else if (mTimeStampMode == TIME_STAMP_RELATIVE) {
+            postDelayed(mTimeStampUpdater, TIME_STAMP_UPDATE_INTERVAL);
+        }
+    }
+
+    /**
+     * 切换状态,所有的状态变化都经过这里。状态真正发生变化时才记录跟踪事件、
+     * 更新Header View并回调{@link OnPullStateChangeListener}
+     *
+     * @param status 新的状态
+     */
+    protected void setStatus(int status) {
+        if (mCurrentStatus == status) {
             return;
-        } else if (mCurrentStatus == STATUS_PULL_TO_REFRESH && !isArrowUp) {
+        }
+        int oldStatus = mCurrentStatus;
+        mCurrentStatus = status;
+        if (mTracer != null) {
+            mTracer.trace(RefreshTracer.EVENT_STATUS, SystemClock.uptimeMillis(), status,
+                    getPullScrollY());
+        }
+        if (mHeaderView != null) {
+            if (status == STATUS_REFRESHING) {
+                showRefreshingHeader();
+            } else if (oldStatus == STATUS_REFRESHING) {
+                // 刷新结束时进度条继续显示,等Header View收起后再换回箭头
+                resetHeaderArrow();
+            } else {
+                // 旋转Header View中的箭头图标
+                rotateHeaderArrow();
+                // 修改Header View中的文本信息
+                changeTips();
+            }
+        }
+        if (mOnPullStateChangeListener != null) {
+            mOnPullStateChangeListener.onPullStateChanged(oldStatus, status);
+        }
+    }
+
+    /**
+     * 平移所有子视图
+     *
+     * @param translationY Y轴的平移值
+     */
+    private void applyChildTranslation(float translationY) {
+        for (int i = 0; i < getChildCount(); i++) {
+            getChildAt(i).setTranslationY(translationY);
+        }
+    }
+
+    /**
+     * {@link #REVEAL_MODE_TRANSLATION}模式下,拖动和回弹时让内容视图使用硬件层,静止后恢复
+     *
+     * @param enable 是否使用硬件层
+     */
+    private void enableContentLayer(boolean enable) {
+        if (enable && mRevealMode != REVEAL_MODE_TRANSLATION) {
             return;
-        } else if (mCurrentStatus == STATUS_RELEASE_TO_REFRESH && isArrowUp) {
+        }
+        if (enable != isContentLayerEnabled) {
+            isContentLayerEnabled = enable;
+            mContentView.setLayerType(enable ? LAYER_TYPE_HARDWARE : LAYER_TYPE_NONE, null);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // MeasureSpec中的宽度值
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        // 可见区域的高度,高度不受限制时使用屏幕高度
+        int viewportHeight = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? mScreenHeight : MeasureSpec.getSize(heightMeasureSpec);
+        // 初始化组件的总高度
+        int finalHeight = 0;
+
+        for (int i = 0; i < getChildCount(); i++) {
+            View childView = getChildAt(i);
+            // MeasureSpec没有变化并且子视图没有请求重新布局时,View.measure()自己会跳过测量
+            if (childView == mContentView) {
+                measureContentView(widthMeasureSpec, viewportHeight);
+            } else {
+                // 测量Header View和Footer View
+                measureChild(childView, widthMeasureSpec, heightMeasureSpec);
+            }
+            // 累加子视图的测量出来的高度,以得到本组件的总高度
+            finalHeight += childView.getMeasuredHeight();
+        }
+
+        // 设置该下拉组件的尺寸,Header View和Footer View在可见区域之外,通过滚动显示
+        setMeasuredDimension(width, resolveSize(finalHeight, heightMeasureSpec));
+    }
+
+    /**
+     * 测量内容视图,高度固定为可见区域的高度,避免ListView为了计算WRAP_CONTENT的高度而测量所有的条目
+     *
+     * @param widthMeasureSpec 父布局给出的宽度
+     * @param viewportHeight   可见区域的高度
+     */
+    private void measureContentView(int widthMeasureSpec, int viewportHeight) {
+        int contentHeight = Math.max(0, viewportHeight - getPaddingTop() - getPaddingBottom());
+        int childWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, getPaddingLeft() +
+                getPaddingRight(), mContentView.getLayoutParams().width);
+        mContentView.measure(childWidthMeasureSpec, MeasureSpec.makeMeasureSpec(contentHeight,
+                MeasureSpec.EXACTLY));
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(mTimeStampUpdater);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            child.layout(left, top, child.getMeasuredWidth(), child.getMeasuredHeight() + top);
+            top += child.getMeasuredHeight();
+        }
+
+        // 计算初始化滑动的y轴距离
+        int headerHeight = mHeaderView == null ? 0 : mHeaderView.getMeasuredHeight();
+        int initScrollY = headerHeight + getPaddingTop();
+        if (initScrollY != mInitScrollY) {
+            // 只有Header View的高度变化时才调整滚动值,并保持当前的下拉距离,其他的重新布局不影响下拉状态
+            updateInitScrollY(initScrollY);
+        } else if (mRevealMode == REVEAL_MODE_TRANSLATION) {
+            // 新添加的子视图也需要平移
+            applyChildTranslation(mInitScrollY - mTranslationScrollY);
+        }
+    }
+
+    /**
+     * 更新初始滚动位置,保持相对于初始位置的下拉距离不变
+     *
+     * @param initScrollY 新的初始滚动位置
+     */
+    private void updateInitScrollY(int initScrollY) {
+        // 相对于初始位置的下拉距离,与布局无关,为正时显示Header View,为负时显示Footer View
+        int pullOffset = mInitScrollY - getPullScrollY();
+        int delta = initScrollY - mInitScrollY;
+        mInitScrollY = initScrollY;
+        if (mRevealMode == REVEAL_MODE_TRANSLATION) {
+            // 布局固定在初始位置,由子视图的平移来显示Header View和Footer View
+            scrollTo(0, mInitScrollY);
+            mTranslationScrollY = mInitScrollY - pullOffset;
+            applyChildTranslation(pullOffset);
+        } else {
+            // 滑动到Header View高度的位置,从面达到隐藏header View的效果
+            scrollTo(0, mInitScrollY - pullOffset);
+        }
+        if (mScrollAnimator.isRunning()) {
+            // 正在进行的动画的起点和目标都随着初始位置移动
+            mScrollAnimator.offsetBy(delta);
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int
+            totalItemCount) {
+        onContentScrolled(firstVisibleItem, visibleItemCount, totalItemCount);
+    }
+
+    /**
+     * 内容视图滚动后调用,判断是否需要加载前一页或者加载更多。不是{@link AbsListView}的内容视图需要在自己的滚动监听中调用该函数
+     *
+     * @param firstVisibleItem 第一个可见项的位置
+     * @param visibleItemCount 可见项的数量
+     * @param totalItemCount   条目总数
+     */
+    protected void onContentScrolled(int firstVisibleItem, int visibleItemCount, int
+            totalItemCount) {
+        if (mOnContentScrollListener != null) {
+            mOnContentScrollListener.onContentScrolled(firstVisibleItem, visibleItemCount,
+                    totalItemCount);
+        }
+        if (shouldLoadPrevious(firstVisibleItem, totalItemCount)) {
+            doLoadPrevious(totalItemCount);
+        }
+        if (mOnLoadListener == null || isLoadingMore || isNoMoreData) {
             return;
         }
 
+        // 用户设置了加载更多监听器,且到了最底部,并且是上拉操作,那么执行加载更多操作
+        if (isBottom()
+                && getPullScrollY() <= mInitScrollY
+                && mYOffset < 0
+                && mCurrentStatus == STATUS_IDLE) {
+            // 显示Footer View
+            showFooterView();
+            doLoadMore(totalItemCount);
+            mYOffset = 0;
+        } else if (shouldPrefetch(firstVisibleItem, visibleItemCount, totalItemCount)) {
+            // 距离末尾不足预加载距离,不显示Footer View,静默加载下一页
+            doLoadMore(totalItemCount);
+        }
+    }
+
+    /**
+     * 判断是否需要加载前一页,只在空闲状态下触发,不会和下拉刷新冲突
+     *
+     * @param firstVisibleItem 第一个可见项的位置
+     * @param totalItemCount   条目总数
+     * @return 接近顶部,并且这一页还没有被加载过时返回{@code true}
+     */
+    private boolean shouldLoadPrevious(int firstVisibleItem, int totalItemCount) {
+        return mOnLoadPreviousListener != null && !isLoadingPrevious
+                && totalItemCount > 0
+                && mCurrentStatus == STATUS_IDLE
+                && firstVisibleItem <= mLoadPreviousThreshold
+                && totalItemCount != mLoadedPreviousCount;
+    }
+
+    /**
+     * 判断是否需要预加载下一页
+     *
+     * @param firstVisibleItem 第一个可见项的位置
+     * @param visibleItemCount 可见项的数量
+     * @param totalItemCount   条目总数
+     * @return 距离末尾不足预加载距离,并且这一页还没有被加载过时返回{@code true}
+     */
+    private boolean shouldPrefetch(int firstVisibleItem, int visibleItemCount, int
+            totalItemCount) {
+        if (mPrefetchDistance <= 0 || totalItemCount <= 0
+                || mCurrentStatus != STATUS_IDLE
+                || totalItemCount == mLoadedItemCount) {
+            return false;
+        }
+
+        if (mPrefetchUnit == PREFETCH_UNIT_PIXELS) {
+            int remainingPixels = getDistanceToBottom();
+            if (remainingPixels >= 0) {
+                return remainingPixels <= mPrefetchDistance;
+            }
+            // 子类无法计算像素距离时退化为按条目数计算
+        }
+        int remainingItems = totalItemCount - (firstVisibleItem + visibleItemCount);
+        return remainingItems <= mPrefetchDistance;
+    }
+
+    /**
+     * 拖动时位置变化后的下一帧,统计拖动的帧耗时。平移模式下只有子视图重绘,
+     * 不会调用{@link #computeScroll()},所以两种模式都由垂直同步信号来记录。
+     * 记录一帧后继续观察下一帧,期间手指没有移动时标记空闲,停顿的时间不会被当成一帧
+     */
+    private final FrameScheduler.FrameCallback mDragFrameCallback = new FrameScheduler
+            .FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mFrameMetrics == null
+                    || mFrameMetrics.getAnimation() != FrameMetricsTracker.ANIMATION_DRAG) {
+                isDragMoved = false;
+                return;
+            }
+            if (!isDragMoved) {
+                // 上一帧之后没有移动,这一帧没有重绘
+                mFrameMetrics.markIdle();
+                return;
+            }
+            isDragMoved = false;
+            mFrameMetrics.onFrame(frameTimeNanos);
+            mFrameScheduler.postFrameCallback(this);
+        }
+    };
+
+    /**
+     * 箭头旋转动画的回调,每一帧设置箭头的角度
+     */
+    private final FrameAnimator.Listener mArrowAnimatorListener = new FrameAnimator.Listener() {
+        @Override
+        public void onAnimationUpdate(FrameAnimator animator, float value, long frameTimeNanos) {
+            if (mArrowImg != null) {
+                ViewCompat.setRotation(mArrowImg, value);
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(FrameAnimator animator, boolean canceled) {
+        }
+    };
+
+    /**
+     * 滚动动画的回调,每一帧把View滚动到动画的当前位置
+     */
+    private final FrameAnimator.Listener mScrollAnimatorListener = new FrameAnimator.Listener() {
+        @Override
+        public void onAnimationUpdate(FrameAnimator animator, float value, long frameTimeNanos) {
+            // 位置没有变化时不会重绘
+            setPullScrollY(Math.round(value));
+            if (mFrameMetrics != null) {
+                mFrameMetrics.onFrame(frameTimeNanos);
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(FrameAnimator animator, boolean canceled) {
+            if (!isBeingDragged && getPullScrollY() == mInitScrollY) {
+                enableContentLayer(false);
+            }
+            if (mFrameMetrics != null
+                    && mFrameMetrics.getAnimation() != FrameMetricsTracker.ANIMATION_DRAG) {
+                mFrameMetrics.end();
+            }
+            int velocity = mPendingContentFling;
+            mPendingContentFling = 0;
+            if (!canceled && velocity != 0) {
+                // Header View已经收起,剩余的速度交给内容视图
+                flingContent(velocity);
+            }
+        }
+    };
+
+    /**
+     * 平滑滚动到指定位置,如果已经有滚动动画,从当前的位置和速度转向新的位置
+     *
+     * @param y     目标位置
+     * @param curve 动画曲线,比如{@link FrameAnimator#CURVE_SPRING}
+     */
+    private boolean smoothScrollTo(int y, int curve) {
+        return smoothScrollTo(y, curve, 0, DEFAULT_SCROLL_DURATION);
+    }
+
+    /**
+     * 平滑滚动到指定位置,如果已经有滚动动画,从当前的位置和速度转向新的位置
+     *
+     * @param y              目标位置
+     * @param curve          动画曲线,比如{@link FrameAnimator#CURVE_SPRING}
+     * @param velocity       弹簧曲线的初始速度(每秒),没有滚动动画时才有效
+     * @param durationMillis 减速曲线的时长(毫秒)
+     * @return 是否有滚动动画在进行,已经静止在目标位置时返回{@code false}
+     */
+    private boolean smoothScrollTo(int y, int curve, float velocity, long durationMillis) {
+        isSettleInterrupted = false;
+        mPendingContentFling = 0;
+        if (!mScrollAnimator.isRunning()) {
+            if (y == getPullScrollY()) {
+                // 已经在目标位置,不需要动画
+                return false;
+            }
+            // 手指拖动后从当前的位置开始
+            mScrollAnimator.setValue(getPullScrollY());
+        }
+        enableContentLayer(true);
+        mScrollAnimator.animateTo(curve, y, velocity, durationMillis);
+        return true;
+    }
+
+    /**
+     * 根据当前状态回弹到静止时的位置
+     */
+    private void settle() {
+        int y;
+        if (mCurrentStatus == STATUS_REFRESHING) {
+            y = mHeaderView.getPaddingTop();
+        } else if (mCurrentStatus == STATUS_LOADING) {
+            y = mInitScrollY + mFooterView.getMeasuredHeight();
+        } else {
+            y = mInitScrollY;
+        }
+        smoothScrollTo(y, FrameAnimator.CURVE_SPRING);
+    }
+
+    /**
+     * 开始统计一个动画的帧耗时
+     *
+     * @param animation 动画类型,比如{@link FrameMetricsTracker#ANIMATION_SETTLE}
+     */
+    private void beginFrameMetrics(int animation) {
+        if (mFrameMetrics != null && mFrameMetrics.getAnimation() != animation) {
+            mFrameMetrics.begin(animation);
+        }
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        // 获取触摸事件的类型
+        final int action = MotionEventCompat.getActionMasked(ev);
+        if (mTracer != null) {
+            mTracer.trace(RefreshTracer.EVENT_INTERCEPT, ev.getEventTime(), action, (int) ev
+                    .getRawY());
+        }
+        if (action == MotionEvent.ACTION_CANCEL || action == MotionEvent.ACTION_UP) {
+            if (isSettleInterrupted) {
+                // 被打断的回弹没有变成下拉,继续回弹
+                settle();
+            }
+            recycleVelocityTracker();
+            return false;
+        }
+        if (isNestedScrollInProgress) {
+            // 内容视图通过嵌套滚动把未消耗的距离交给该布局,不需要拦截
+            return false;
+        }
+        trackVelocity(ev);
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                mLastY = (int) ev.getRawY();
+                // 新的手势开始,只记录这一次有没有打断回弹,上一次留下的标记不再有效
+                isSettleInterrupted = mScrollAnimator.isRunning();
+                if (isSettleInterrupted) {
+                    // 新的触摸打断回弹动画,停在当前位置,由手指接管
+                    mScrollAnimator.cancel();
+                }
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                mYOffset = (int) ev.getRawY() - mLastY;
+                // 如果拉到了顶部,并且是下拉,则拦截触摸事件,并转到onTouchEvent()来处理下拉刷新事件
+                if (isTop() && mYOffset > 0) {
+                    return true;
+                }
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * 处理下拉和上拉。拖动过程中的ACTION_MOVE不分配对象:滚动位置和状态由{@link PullTracker}计算,
+     * Header View只在状态变化时更新,箭头复用同一个动画,默认Header View的提示文字只切换可见性,
+     * 更新时间的文字在Header View露出时格式化,同一分钟内不会重新格式化
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mTracer != null) {
+            mTracer.trace(RefreshTracer.EVENT_TOUCH, event.getEventTime(), event.getAction(),
+                    (int) event.getRawY());
+        }
+        if (event.getAction() != MotionEvent.ACTION_DOWN) {
+            // ACTION_DOWN已经在onInterceptTouchEvent()中记录过
+            trackVelocity(event);
+        }
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_MOVE:   // 滑动事件
+                if (!isBeingDragged) {
+                    isBeingDragged = true;
+                    enableContentLayer(true);
+                }
+                // 获取当前触摸的y轴坐标
+                int currentY = (int) event.getRawY();
+                // 移动的偏移量
+                mYOffset = currentY - mLastY;
+                pullBy(mYOffset);
+                // mLastY设置为这次的Y轴坐标
+                mLastY = currentY;
+                break;
+
+            case MotionEvent.ACTION_UP:
+                isBeingDragged = false;
+                if (mFrameMetrics != null) {
+                    mFrameMetrics.end();
+                }
+                float velocityY = computeVelocityY();
+                recycleVelocityTracker();
+                if (isTop()) {
+                    // 下拉刷新的具体操作
+                    doRefresh(velocityY);
+                } else {
+                    // 回到当前状态对应的位置,比如拖动期间刷新已经完成
+                    settle();
+                }
+
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                isBeingDragged = false;
+                if (mFrameMetrics != null) {
+                    mFrameMetrics.end();
+                }
+                recycleVelocityTracker();
+                settle();
+                break;
+            default:
+                break;
+        }
+        if (!isBeingDragged && !mScrollAnimator.isRunning()) {
+            // 没有回弹动画,不再需要硬件层
+            enableContentLayer(false);
+        }
+//        return super.onTouchEvent(event);
+        return true;
+    }
+
+    /**
+     * 手指拖动时移动该控件,并更新Header View
+     *
+     * @param distance 手指移动的距离,向下为正
+     */
+    private void pullBy(int distance) {
+        // 第一次下拉时才创建Header View
+        ensureHeaderView();
+        if (mCurrentStatus != STATUS_LOADING) {
+            beginFrameMetrics(FrameMetricsTracker.ANIMATION_DRAG);
+            // 在Y轴方向移动该控件
+            changeScrollY(distance);
+        }
+    }
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+        isNestedScrollInProgress = true;
+        mNestedFlingVelocity = 0;
+        isSettleInterrupted = mScrollAnimator.isRunning();
+        if (isSettleInterrupted) {
+            // 新的触摸打断回弹动画,停在当前位置,由手指接管
+            mScrollAnimator.cancel();
+        }
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        int pullScrollY = getPullScrollY();
+        // Header View或者Footer View显示时,先收起它们,再让内容视图滚动
+        if (dy > 0 && pullScrollY < mInitScrollY) {
+            int distance = Math.min(dy, mInitScrollY - pullScrollY);
+            onNestedPull(-distance);
+            consumed[1] = distance;
+        } else if (dy < 0 && pullScrollY > mInitScrollY && mCurrentStatus != STATUS_LOADING) {
+            int distance = Math.max(dy, mInitScrollY - pullScrollY);
+            onNestedPull(-distance);
+            consumed[1] = distance;
+        }
+    }
+
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
+                               int dyUnconsumed) {
+        // 内容视图到了顶部,剩余的下拉距离用来显示Header View
+        if (dyUnconsumed < 0) {
+            onNestedPull(-dyUnconsumed);
+        } else {
+            mYOffset = -dyUnconsumed;
+        }
+    }
+
+    /**
+     * 嵌套滚动中移动该控件
+     *
+     * @param distance 手指移动的距离,向下为正
+     */
+    private void onNestedPull(int distance) {
+        if (!isBeingDragged) {
+            isBeingDragged = true;
+            enableContentLayer(true);
+        }
+        mYOffset = distance;
+        pullBy(distance);
+    }
+
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        // fling的速度以内容滚动方向为正,转换为手指的速度
+        mNestedFlingVelocity = -velocityY;
+        // Header View显示时由该布局处理fling,收起Header View后再把剩余的速度交给内容视图
+        return getPullScrollY() < mInitScrollY;
+    }
+
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean
+            consumed) {
+        return false;
+    }
+
+    @Override
+    public void onStopNestedScroll(View target) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target);
+        if (!isNestedScrollInProgress) {
+            return;
+        }
+        isNestedScrollInProgress = false;
+        boolean wasDragged = isBeingDragged;
+        isBeingDragged = false;
+        if (mFrameMetrics != null) {
+            mFrameMetrics.end();
+        }
+        if (wasDragged && getPullScrollY() < mInitScrollY) {
+            doRefresh(mNestedFlingVelocity);
+        } else if (wasDragged || isSettleInterrupted) {
+            settle();
+        }
+        if (!mScrollAnimator.isRunning()) {
+            enableContentLayer(false);
+        }
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
+    /**
+     * 修改y轴上的滚动值,从而实现Header View被下拉的效果
+     *
+     * @param distance 滚动的偏移量(偏移距离)
+     */
+    private void changeScrollY(int distance) {
+        mPullTracker.setRange(getPaddingTop(), mInitScrollY);
+        int currentY = getPullScrollY();
+        int targetY = mPullTracker.pull(currentY, distance);
+        if (targetY != currentY) {
+            setPullScrollY(targetY);
+            if (mFrameMetrics != null) {
+                isDragMoved = true;
+                mFrameScheduler.postFrameCallback(mDragFrameCallback);
+            }
+        } else if (mFrameMetrics != null) {
+            // 没有移动,不会重绘,下一帧不计算这段空闲时间
+            mFrameMetrics.markIdle();
+        }
+
+        setStatus(mPullTracker.statusFor(getPullScrollY()));
+    }
+
+    private void rotateHeaderArrow() {
+        if (mCurrentStatus == STATUS_REFRESHING) {
+            return;
+        } else if ((mCurrentStatus == STATUS_RELEASE_TO_REFRESH) == isArrowUp) {
+            // 箭头已经指向正确的方向
+            return;
+        }
+
+        if (mIndicatorView != null) {
+            // 指示器的箭头由下拉进度驱动
+            isArrowUp = mCurrentStatus == STATUS_RELEASE_TO_REFRESH;
+            return;
+        }
         mRefreshProgress.setVisibility(View.GONE);
         mArrowImg.setVisibility(View.VISIBLE);
 
-        float pivotX = mArrowImg.getWidth() / 2f;
-        float pivotY = mArrowImg.getHeight() / 2f;
-        float fromDegrees = 0f;
-        float toDegrees = 0f;
-        if (mCurrentStatus == STATUS_PULL_TO_REFRESH) {
-            fromDegrees = 180f;
-            toDegrees = 360f;
-        } else if (mCurrentStatus == STATUS_RELEASE_TO_REFRESH) {
-            fromDegrees = 0f;
-            toDegrees = 180f;
+        isArrowUp = mCurrentStatus == STATUS_RELEASE_TO_REFRESH;
+        // 复用同一个动画,旋转途中状态再次改变时从当前角度转向新的目标
+        mArrowAnimator.animateTo(FrameAnimator.CURVE_DECELERATE, isArrowUp ? 180f : 0f, 0,
+                ARROW_ROTATE_DURATION);
+
+        if (mTracer != null) {
+            mTracer.trace(RefreshTracer.EVENT_ARROW, SystemClock.uptimeMillis(), mCurrentStatus,
+                    isArrowUp ? 1 : 0);
         }
-        RotateAnimation animation = new RotateAnimation(fromDegrees, toDegrees, pivotX, pivotY);
-        animation.setDuration(100);
-        animation.setFillAfter(true);
-        mArrowImg.startAnimation(animation);
+    }
 
-        if (mCurrentStatus == STATUS_RELEASE_TO_REFRESH) {
-            isArrowUp = true;
-        } else {
-            isArrowUp = false;
+    /**
+     * 刷新结束后把箭头直接转回向下,不显示出来
+     */
+    private void resetHeaderArrow() {
+        isArrowUp = false;
+        if (mIndicatorView != null) {
+            return;
         }
+        mArrowAnimator.setValue(0f);
+        ViewCompat.setRotation(mArrowImg, 0f);
     }
 
     private void changeTips() {
+        if (mIndicatorView != null) {
+            if (mCurrentStatus == STATUS_PULL_TO_REFRESH) {
+                mIndicatorView.setState(RefreshIndicatorView.STATE_PULL);
+            } else if (mCurrentStatus == STATUS_RELEASE_TO_REFRESH) {
+                mIndicatorView.setState(RefreshIndicatorView.STATE_RELEASE);
+            }
+            return;
+        }
+        // setText()会重新创建文字的布局,这里只在VISIBLE和INVISIBLE之间切换,不会重新布局
         if (mCurrentStatus == STATUS_PULL_TO_REFRESH) {
-            mTipsTxt.setText(R.string.txt_pull_to_refresh);
+            mTipsTxt.setVisibility(View.VISIBLE);
+            mReleaseTipsTxt.setVisibility(View.INVISIBLE);
         } else if (mCurrentStatus == STATUS_RELEASE_TO_REFRESH) {
-            mTipsTxt.setText(R.string.up_to_refresh);
+            mTipsTxt.setVisibility(View.INVISIBLE);
+            mReleaseTipsTxt.setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * 记录触摸事件,用于计算手指的速度
+     *
+     * @param event 触摸事件
+     */
+    private void trackVelocity(MotionEvent event) {
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        mVelocityTracker.addMovement(event);
+    }
+
+    /**
+     * @return 手指在Y轴上的速度(像素/秒),向下为正
+     */
+    private float computeVelocityY() {
+        if (mVelocityTracker == null) {
+            return 0;
+        }
+        mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+        return mVelocityTracker.getYVelocity();
+    }
+
+    private void recycleVelocityTracker() {
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
         }
     }
 
     /**
      * 执行下拉刷新操作
+     *
+     * @param velocityY 手指抬起时Y轴上的速度(像素/秒),向下为正
      */
-    private void doRefresh() {
-        changeHeaderViewStatus();
+    private void doRefresh(float velocityY) {
+        if (mHeaderView == null) {
+            // 还没有下拉过
+            return;
+        }
+        changeHeaderViewStatus(velocityY);
         // 执行刷新操作
         if (mCurrentStatus == STATUS_REFRESHING && mOnRefreshListener != null) {
             // 刷新回调
@@ -482,87 +1534,279 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
 
     /**
      * 手指抬起时,根据用户下拉的高度来判断是否是有效的下拉刷新操作,如果下的是距离超过Header View的一半(1/2), 那么
-     * 则认为是有效的下拉刷新操作,否则恢复原来的视图状态
+     * 则认为是有效的下拉刷新操作,否则恢复原来的视图状态。快速下拉时按手指的速度预测松手后的位置,
+     * 回弹动画也从手指的速度开始
+     *
+     * @param velocityY 手指抬起时Y轴上的速度(像素/秒),向下为正
      */
-    private void changeHeaderViewStatus() {
-        Log.d(TAG, "changeHeaderViewStatus: ");
-        int curScrollY = getScrollY();
+    private void changeHeaderViewStatus(float velocityY) {
+        int curScrollY = getPullScrollY();
+        // 按当前速度继续滑动一小段时间后的位置
+        int projectedScrollY = curScrollY - (int) (velocityY * FLING_PROJECTION_SECONDS);
         // 超过1/2则认为是有效的下拉刷新,否则还原
-        if (curScrollY < mInitScrollY / 2) {
-            mRefreshProgress.setVisibility(VISIBLE);
-            mArrowImg.setVisibility(View.GONE);
+        if (curScrollY < mInitScrollY && projectedScrollY < mInitScrollY / 2) {
             // 滚动到能够正常显示Header View的位置
-            mScroller.startScroll(getScrollX(), curScrollY, 0, mHeaderView.getPaddingTop() -
-                    curScrollY);
-            mCurrentStatus = STATUS_REFRESHING;
-            mTipsTxt.setText(R.string.txt_tip_refreshing);
+            if (smoothScrollTo(mHeaderView.getPaddingTop(), FrameAnimator.CURVE_SPRING,
+                    -velocityY, 0)) {
+                beginFrameMetrics(FrameMetricsTracker.ANIMATION_SETTLE);
+            }
+            setStatus(STATUS_REFRESHING);
         } else {
-            mScroller.startScroll(getScrollX(), curScrollY, 0, mInitScrollY - curScrollY);
-            mCurrentStatus = STATUS_IDLE;
+            int distance = mInitScrollY - curScrollY;
+            if (velocityY < -mMinimumFlingVelocity && distance > 0) {
+                // 向上快速滑动,以手指的速度收起Header View,然后把速度交给内容视图
+                long duration = (long) (2000f * distance / -velocityY);
+                smoothScrollTo(mInitScrollY, FrameAnimator.CURVE_DECELERATE, 0, duration);
+                beginFrameMetrics(FrameMetricsTracker.ANIMATION_SETTLE);
+                mPendingContentFling = (int) -velocityY;
+            } else if (velocityY < -mMinimumFlingVelocity && distance == 0) {
+                // Header View已经收起,直接交给内容视图
+                flingContent((int) -velocityY);
+            } else if (smoothScrollTo(mInitScrollY, FrameAnimator.CURVE_SPRING, -velocityY, 0)) {
+                beginFrameMetrics(FrameMetricsTracker.ANIMATION_SETTLE);
+            }
+            setStatus(STATUS_IDLE);
         }
+    }
 
-        invalidate();
+    /**
+     * 刷新结束,恢复状态,并把更新时间设置为现在
+     */
+    public void refreshComplete() {
+        refreshComplete(true);
     }
 
     /**
      * 刷新结束,恢复状态
+     *
+     * @param updated 数据是否已经更新,为false时(比如刷新失败、超时或者直接使用缓存)不改变更新时间
      */
-    public void refreshComplete() {
-        mCurrentStatus = STATUS_IDLE;
+    public void refreshComplete(boolean updated) {
+        setStatus(STATUS_IDLE);
+        // 刷新后数据已经替换,允许重新加载下一页和前一页
+        mLoadedItemCount = -1;
+        isNoMoreData = false;
+        mLoadedPreviousCount = -1;
 
-        // 隐藏Header View
-        mScroller.startScroll(getScrollX(), getScrollY(), 0, mInitScrollY - getScrollY());
-        invalidate();
+        // 隐藏Header View,手指正在拖动时等手指抬起后再回弹,避免和手指争抢
+        if (!isBeingDragged && smoothScrollTo(mInitScrollY, FrameAnimator.CURVE_DECELERATE)) {
+            beginFrameMetrics(FrameMetricsTracker.ANIMATION_REFRESH_COMPLETE);
+        }
 
-        updateHeaderTimeStamp();
+        if (updated) {
+            setLastUpdateTime(System.currentTimeMillis());
+        }
+        if (mHeaderView == null) {
+            return;
+        }
 
         // 200毫秒后处理arrow和progressBar,免得太突兀
         this.postDelayed(new Runnable() {
             @Override
             public void run() {
+                if (mIndicatorView != null) {
+                    mIndicatorView.setState(RefreshIndicatorView.STATE_PULL);
+                    return;
+                }
                 mRefreshProgress.setVisibility(View.GONE);
                 mArrowImg.setVisibility(View.VISIBLE);
+                // 换回下拉刷新的文字,下一次拖动时不需要修改文字
+                mTipsTxt.setText(R.string.txt_pull_to_refresh);
             }
         }, 100);
     }
 
     /**
-     * 修改Header View上的最新更新时间
+     * Header View显示为刷新中
+     */
+    private void showRefreshingHeader() {
+        if (mIndicatorView != null) {
+            mIndicatorView.setState(RefreshIndicatorView.STATE_REFRESHING);
+            return;
+        }
+        mRefreshProgress.setVisibility(VISIBLE);
+        mArrowImg.setVisibility(View.GONE);
+        mTipsTxt.setText(R.string.txt_tip_refreshing);
+        mTipsTxt.setVisibility(View.VISIBLE);
+        mReleaseTipsTxt.setVisibility(View.INVISIBLE);
+    }
+
+    /**
+     * 计算更新时间的文字对应的值,值相同时文字也相同。相对时间精确到分钟,用负数和绝对时间区分
+     *
+     * @return 更新时间的文字对应的值
+     */
+    private long getTimeStampKey() {
+        long elapsed = System.currentTimeMillis() - mLastUpdateTime;
+        if (mTimeStampMode == TIME_STAMP_RELATIVE && elapsed >= 0 && elapsed < DAY_MILLIS) {
+            return -1 - elapsed / MINUTE_MILLIS;
+        }
+        return mLastUpdateTime;
+    }
+
+    /**
+     * 修改Header View上的最新更新时间,文字没有变化时不重新格式化
      */
     private void updateHeaderTimeStamp() {
+        if (mHeaderView == null || mLastUpdateTime == 0) {
+            return;
+        }
+        long key = getTimeStampKey();
+        if (key == mShownTimeStampKey) {
+            return;
+        }
+        mShownTimeStampKey = key;
+        long elapsed = System.currentTimeMillis() - mLastUpdateTime;
+        boolean relative = key != mLastUpdateTime;
+
+        String time;
+        if (!relative) {
+            mTimeStampDate.setTime(mLastUpdateTime);
+            time = sTimeStampFormat.get().format(mTimeStampDate);
+        } else if (elapsed < MINUTE_MILLIS) {
+            time = getResources().getString(R.string.txt_update_just_now);
+        } else if (elapsed < HOUR_MILLIS) {
+            time = getResources().getString(R.string.txt_update_minutes_ago,
+                    (int) (elapsed / MINUTE_MILLIS));
+        } else {
+            time = getResources().getString(R.string.txt_update_hours_ago,
+                    (int) (elapsed / HOUR_MILLIS));
+        }
         // 设置更新时间
-        mTimeTxt.setText(R.string.txt_last_update_time);
-        SimpleDateFormat sdf = (SimpleDateFormat) SimpleDateFormat.getInstance();
-        sdf.applyPattern("yyyy-MM-dd HH:mm:ss");
-        mTimeTxt.append(sdf.format(new Date()));
+        String text = mLastUpdateLabel + time;
+        if (mIndicatorView != null) {
+            mIndicatorView.setTimeText(text);
+        } else {
+            mTimeTxt.setText(text);
+        }
     }
 
+    /**
+     * 设置更新时间的显示方式
+     *
+     * @param mode {@link #TIME_STAMP_ABSOLUTE}或者{@link #TIME_STAMP_RELATIVE}
+     */
+    public void setTimeStampMode(int mode) {
+        if (mode != TIME_STAMP_ABSOLUTE && mode != TIME_STAMP_RELATIVE) {
+            throw new IllegalArgumentException("Unknown time stamp mode: " + mode);
+        }
+        if (mTimeStampMode == mode) {
+            return;
+        }
+        mTimeStampMode = mode;
+        mShownTimeStampKey = Long.MIN_VALUE;
+        if (isHeaderVisible) {
+            onHeaderVisibilityChanged(true);
+        }
+    }
+
+    public int getTimeStampMode() {
+        return mTimeStampMode;
+    }
+
+    /**
+     * 设置上次更新的时间,比如从缓存中恢复数据时使用缓存的时间。这里只记录时间,
+     * Header View露出时才格式化
+     *
+     * @param timeMillis 上次更新的时间,{@link System#currentTimeMillis()}时基,为0时不显示
+     */
+    public void setLastUpdateTime(long timeMillis) {
+        if (mLastUpdateTime == timeMillis) {
+            return;
+        }
+        mLastUpdateTime = timeMillis;
+        if (isHeaderVisible) {
+            onHeaderVisibilityChanged(true);
+        }
+    }
+
+    /**
+     * @return 上次更新的时间,还没有更新过时返回0
+     */
+    public long getLastUpdateTime() {
+        return mLastUpdateTime;
+    }
+
+    /**
+     * 加载更多结束。失败或者被取消时同一条目总数不会再自动触发加载,需要调用{@link #retryLoadMore()}
+     */
     public void loadCompute() {
+        loadCompute(true);
+    }
+
+    /**
+     * 加载更多结束
+     *
+     * @param hasMore 数据源是否还有更多数据,为false时下一次刷新前不再触发加载更多
+     */
+    public void loadCompute(boolean hasMore) {
+        isLoadingMore = false;
+        isNoMoreData = !hasMore;
+        if (mCurrentStatus != STATUS_LOADING) {
+            // 预加载时没有显示Footer View,不需要滚动
+            return;
+        }
+        setStatus(STATUS_IDLE);
         // 隐藏Footer View
-        startScroll(mInitScrollY - getScrollY());
-        mCurrentStatus = STATUS_IDLE;
+        if (!isBeingDragged && smoothScrollTo(mInitScrollY, FrameAnimator.CURVE_DECELERATE)) {
+            beginFrameMetrics(FrameMetricsTracker.ANIMATION_FOOTER);
+        }
+    }
+
+    /**
+     * 重新加载失败的那一页,比如用户点击了重试。没有更多数据或者正在加载时忽略
+     */
+    public void retryLoadMore() {
+        if (mOnLoadListener == null || isLoadingMore || isNoMoreData) {
+            return;
+        }
+        doLoadMore(mLoadedItemCount);
     }
 
     /**
      * 显示Footer View
      */
     private void showFooterView() {
-        startScroll(mFooterView.getMeasuredHeight());
-        mCurrentStatus = STATUS_LOADING;
+        ensureFooterView();
+        if (startScroll(mFooterView.getMeasuredHeight())) {
+            beginFrameMetrics(FrameMetricsTracker.ANIMATION_FOOTER);
+        }
+        setStatus(STATUS_LOADING);
     }
 
     /**
      * 执行下拉加载更多的操作
+     *
+     * @param totalItemCount 触发加载时的条目总数,同一条目总数只会触发一次加载
      */
-    private void doLoadMore() {
+    private void doLoadMore(int totalItemCount) {
         if (mOnLoadListener != null) {
+            isLoadingMore = true;
+            mLoadedItemCount = totalItemCount;
             mOnLoadListener.onLoadMore();
         }
     }
 
-    private void startScroll(int offSetY) {
-        mScroller.startScroll(getScrollX(), getScrollY(), 0, offSetY);
-        invalidate();
+    /**
+     * 加载前一页结束,新的条目已经插入到开头或者加载失败
+     */
+    public void loadPreviousComplete() {
+        isLoadingPrevious = false;
+    }
+
+    /**
+     * 执行加载前一页的操作
+     *
+     * @param totalItemCount 触发加载时的条目总数,同一条目总数只会触发一次加载
+     */
+    private void doLoadPrevious(int totalItemCount) {
+        isLoadingPrevious = true;
+        mLoadedPreviousCount = totalItemCount;
+        mOnLoadPreviousListener.onLoadPrevious();
+    }
+
+    private boolean startScroll(int offSetY) {
+        return smoothScrollTo(getPullScrollY() + offSetY, FrameAnimator.CURVE_DECELERATE);
     }
 
     /**
@@ -584,4 +1828,21 @@ public abstract class RefreshLayoutBase<T extends View> extends ViewGroup implem
      * </b>
      */
     protected abstract boolean isBottom();
+
+    /**
+     * 计算内容视图距离最底部还有多少像素,用于按像素计算的预加载,子类可以覆写该函数
+     *
+     * @return 距离最底部的像素值,无法计算时返回-1
+     */
+    protected int getDistanceToBottom() {
+        return -1;
+    }
+
+    /**
+     * 让内容视图以指定的速度滚动,用于把收起Header View后剩余的速度交给内容视图,子类可以覆写该函数
+     *
+     * @param velocityY Y轴上的速度(像素/秒),为正时内容向上滚动
+     */
+    protected void flingContent(int velocityY) {
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 在后台线程中计算列表差异,然后在主线程中回调结果。连续提交多个快照时只回调最后一个
+ * <p>
+ * Created by on 16/5/26.
+ *
+ * @param <E> 条目数据的类型
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class AsyncListDiffer<E> {
+    private static ExecutorService sDefaultExecutor;
+
+    private final ItemCallback<E> mItemCallback;
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 每次提交加1,只有最后一次提交的结果会被回调
+     */
+    private int mGeneration;
+
+    /**
+     * 使用默认的后台线程计算差异
+     *
+     * @param itemCallback 识别条目的回调
+     */
+    public AsyncListDiffer(ItemCallback<E> itemCallback) {
+        this(itemCallback, getDefaultExecutor());
+    }
+
+    /**
+     * @param itemCallback 识别条目的回调
+     * @param executor     计算差异的线程池
+     */
+    public AsyncListDiffer(ItemCallback<E> itemCallback, Executor executor) {
+        mItemCallback = itemCallback;
+        mExecutor = executor;
+    }
+
+    /**
+     * 提交新的快照,在后台线程中计算与旧快照的差异,计算完成后在主线程中回调。需要在主线程中调用
+     *
+     * @param oldList  旧快照,计算期间不能被修改
+     * @param newList  新快照,会被复制一份,调用后可以修改
+     * @param callback 主线程中的回调
+     */
+    public void submit(final List<E> oldList, List<E> newList, final Callback<E> callback) {
+        final int generation = ++mGeneration;
+        final List<E> snapshot = new ArrayList<>(newList);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffResult result = ItemDiffer.calculate(oldList, snapshot, mItemCallback);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            callback.onDiffCalculated(snapshot, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 取消还没有回调的提交
+     */
+    public void cancel() {
+        mGeneration++;
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RefreshListDiffer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    /**
+     * 差异计算完成的回调
+     *
+     * @param <E> 条目数据的类型
+     */
+    public interface Callback<E> {
+        /**
+         * 在主线程中回调
+         *
+         * @param newList 新快照
+         * @param result  旧快照到新快照的差异
+         */
+        void onDiffCalculated(List<E> newList, DiffResult result);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.adapter;
+
+/**
+ * 两个列表快照之间的差异,由一系列删除、插入和更新操作组成,连续的同类操作合并为一个范围。
+ * 删除操作按照位置从后往前排列,插入和更新操作按照位置从前往后排列,依次应用后旧列表即变为新列表
+ * <p>
+ * Created by on 16/5/26.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class DiffResult {
+    static final int OP_REMOVE = 0;
+    static final int OP_INSERT = 1;
+    static final int OP_CHANGE = 2;
+
+    private int[] mOps = new int[16];
+    private int[] mPositions = new int[16];
+    private int[] mCounts = new int[16];
+    private int mSize;
+    private boolean hasStructuralChanges;
+
+    /**
+     * 追加一个操作,能与上一个操作合并时合并为一个范围
+     */
+    void add(int op, int position) {
+        if (mSize > 0 && mOps[mSize - 1] == op) {
+            int last = mSize - 1;
+            if (op == OP_REMOVE && mPositions[last] == position + 1) {
+                // 从后往前删除
+                mPositions[last] = position;
+                mCounts[last]++;
+                return;
+            } else if (op != OP_REMOVE && mPositions[last] + mCounts[last] == position) {
+                mCounts[last]++;
+                return;
+            }
+        }
+        if (mSize == mOps.length) {
+            mOps = grow(mOps);
+            mPositions = grow(mPositions);
+            mCounts = grow(mCounts);
+        }
+        mOps[mSize] = op;
+        mPositions[mSize] = position;
+        mCounts[mSize] = 1;
+        mSize++;
+        if (op != OP_CHANGE) {
+            hasStructuralChanges = true;
+        }
+    }
+
+    private static int[] grow(int[] array) {
+        int[] newArray = new int[array.length * 2];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    /**
+     * @return 是否有插入或者删除,只有更新时为{@code false}
+     */
+    public boolean hasStructuralChanges() {
+        return hasStructuralChanges;
+    }
+
+    /**
+     * @return 两个快照是否完全相同
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * 依次把所有操作分发给回调
+     *
+     * @param callback 更新回调
+     */
+    public void dispatchUpdatesTo(ListUpdateCallback callback) {
+        for (int i = 0; i < mSize; i++) {
+            switch (mOps[i]) {
+                case OP_REMOVE:
+                    callback.onRemoved(mPositions[i], mCounts[i]);
+                    break;
+                case OP_INSERT:
+                    callback.onInserted(mPositions[i], mCounts[i]);
+                    break;
+                default:
+                    callback.onChanged(mPositions[i], mCounts[i]);
+                    break;
+            }
+        }
+        callback.onDispatchFinished();
+    }
+}
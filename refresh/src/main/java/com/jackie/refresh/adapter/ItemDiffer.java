@@ -0,0 +1,173 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.adapter;
+
+import java.util.List;
+
+/**
+ * 根据稳定ID计算两个列表快照之间的差异。两个快照中都存在、并且相对顺序没有变化的条目(最长递增子序列)保持不动,
+ * 其余条目按删除和插入处理,内容变化的条目按更新处理。时间复杂度为O(n log n),应该在后台线程中调用
+ * <p>
+ * Created by on 16/5/26.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public final class ItemDiffer {
+    /**
+     * 旧快照中每个ID的位置,每个线程复用同一个索引
+     */
+    private static final ThreadLocal<LongIdIndex> sOldPositions = new ThreadLocal<LongIdIndex>() {
+        @Override
+        protected LongIdIndex initialValue() {
+            return new LongIdIndex();
+        }
+    };
+
+    private ItemDiffer() {
+    }
+
+    /**
+     * 计算从旧快照到新快照的差异
+     *
+     * @param oldList  旧快照
+     * @param newList  新快照
+     * @param callback 识别条目的回调
+     * @param <E>      条目数据的类型
+     * @return 差异
+     */
+    public static <E> DiffResult calculate(List<E> oldList, List<E> newList, ItemCallback<E>
+            callback) {
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+
+        LongIdIndex oldPositions = sOldPositions.get();
+        oldPositions.clear();
+        oldPositions.ensureCapacity(oldSize);
+        for (int i = 0; i < oldSize; i++) {
+            E item = oldList.get(i);
+            if (item == null) {
+                // 占位条目没有ID,不会被匹配
+                continue;
+            }
+            oldPositions.putIfAbsent(callback.getStableId(item), i);
+        }
+
+        // 新快照中每个条目在旧快照中的位置,不存在时为-1,重复的ID只匹配一次
+        int[] matched = new int[newSize];
+        boolean[] used = new boolean[oldSize];
+        for (int i = 0; i < newSize; i++) {
+            E item = newList.get(i);
+            int position = item == null ? LongIdIndex.NO_VALUE
+                    : oldPositions.get(callback.getStableId(item));
+            if (position != LongIdIndex.NO_VALUE && !used[position]) {
+                matched[i] = position;
+                used[position] = true;
+            } else {
+                matched[i] = -1;
+            }
+        }
+
+        boolean[] kept = keepLongestIncreasing(matched, oldSize);
+
+        DiffResult result = new DiffResult();
+        for (int i = oldSize - 1; i >= 0; i--) {
+            if (!kept[i]) {
+                result.add(DiffResult.OP_REMOVE, i);
+            }
+        }
+        for (int i = 0; i < newSize; i++) {
+            int oldPosition = matched[i];
+            if (oldPosition >= 0 && kept[oldPosition]) {
+                if (!callback.areContentsTheSame(oldList.get(oldPosition), newList.get(i))) {
+                    result.add(DiffResult.OP_CHANGE, i);
+                }
+            } else {
+                result.add(DiffResult.OP_INSERT, i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 找出matched中旧位置的最长递增子序列,这些条目的相对顺序没有变化,不需要移动
+     *
+     * @param matched 新快照中每个条目在旧快照中的位置,-1表示新条目
+     * @param oldSize 旧快照的大小
+     * @return 旧快照中每个位置是否保持不动
+     */
+    private static boolean[] keepLongestIncreasing(int[] matched, int oldSize) {
+        int size = matched.length;
+        // tails[k]为长度k+1的递增子序列的最小结尾在matched中的下标
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            int value = matched[i];
+            if (value < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (matched[tails[mid]] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] kept = new boolean[oldSize];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            kept[matched[i]] = true;
+        }
+        return kept;
+    }
+}
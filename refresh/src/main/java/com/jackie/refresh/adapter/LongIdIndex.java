@@ -0,0 +1,258 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.adapter;
+
+import java.util.Arrays;
+
+/**
+ * 以long类型的稳定ID为键、int为值的开放寻址散列表,用于合并分页数据时按ID去重和查找条目的位置,
+ * 不会把ID装箱成{@link Long}。
+ * <p>
+ * 冲突时线性探测,删除时把后面同一簇中的条目前移,不留墓碑。每个槽位记录写入时的代数,
+ * {@link #clear()}只需要把代数加1,所以同一个实例可以在每次合并时重复使用,容量足够时不再分配内存。
+ * 不是线程安全的
+ * </p>
+ * Created by on 16/6/4.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public final class LongIdIndex {
+    /**
+     * 键不存在时返回的值,存入的值应该大于等于0
+     */
+    public static final int NO_VALUE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] mKeys;
+    private int[] mValues;
+    /**
+     * 每个槽位写入时的代数,等于{@link #mStamp}时槽位有效
+     */
+    private int[] mStamps;
+    private int mStamp = 1;
+    private int mSize;
+    private int mMask;
+
+    public LongIdIndex() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param expectedSize 预计的条目数
+     */
+    public LongIdIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * 清空所有条目,不释放内存
+     */
+    public void clear() {
+        mSize = 0;
+        mStamp++;
+        if (mStamp == 0) {
+            // 代数用完一轮,旧的槽位可能和新的代数相同
+            Arrays.fill(mStamps, 0);
+            mStamp = 1;
+        }
+    }
+
+    /**
+     * 保证可以放下指定数量的条目而不需要扩容
+     *
+     * @param expectedSize 预计的条目数
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity > mKeys.length) {
+            rehash(capacity);
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean contains(long id) {
+        return mStamps[indexOf(id)] == mStamp;
+    }
+
+    /**
+     * @param id ID
+     * @return ID对应的值,不存在时返回{@link #NO_VALUE}
+     */
+    public int get(long id) {
+        int index = indexOf(id);
+        return mStamps[index] == mStamp ? mValues[index] : NO_VALUE;
+    }
+
+    /**
+     * 写入ID对应的值,已经存在时覆盖
+     *
+     * @param id    ID
+     * @param value 值
+     */
+    public void put(long id, int value) {
+        int index = indexOf(id);
+        if (mStamps[index] == mStamp) {
+            mValues[index] = value;
+        } else {
+            insert(index, id, value);
+        }
+    }
+
+    /**
+     * ID不存在时写入,已经存在时不改变原来的值
+     *
+     * @param id    ID
+     * @param value 值
+     * @return 原来的值,ID不存在时返回{@link #NO_VALUE}
+     */
+    public int putIfAbsent(long id, int value) {
+        int index = indexOf(id);
+        if (mStamps[index] == mStamp) {
+            return mValues[index];
+        }
+        insert(index, id, value);
+        return NO_VALUE;
+    }
+
+    /**
+     * 删除ID
+     *
+     * @param id ID
+     * @return 被删除的值,ID不存在时返回{@link #NO_VALUE}
+     */
+    public int remove(long id) {
+        int hole = indexOf(id);
+        if (mStamps[hole] != mStamp) {
+            return NO_VALUE;
+        }
+        int removed = mValues[hole];
+        // 把同一簇中后面的条目前移到空出来的槽位,保证查找时不会提前遇到空槽
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mMask;
+            if (mStamps[index] != mStamp) {
+                break;
+            }
+            int home = hash(mKeys[index]) & mMask;
+            // 条目的初始槽位不在(hole, index]之间时,可以前移到hole
+            boolean between = hole <= index ? hole < home && home <= index
+                    : hole < home || home <= index;
+            if (!between) {
+                mKeys[hole] = mKeys[index];
+                mValues[hole] = mValues[index];
+                hole = index;
+            }
+        }
+        mStamps[hole] = 0;
+        mSize--;
+        return removed;
+    }
+
+    private void insert(int index, long id, int value) {
+        mKeys[index] = id;
+        mValues[index] = value;
+        mStamps[index] = mStamp;
+        mSize++;
+        if (mSize > mKeys.length / 2) {
+            rehash(mKeys.length * 2);
+        }
+    }
+
+    /**
+     * @return ID所在的槽位,不存在时返回应该写入的空槽位
+     */
+    private int indexOf(long id) {
+        int index = hash(id) & mMask;
+        while (mStamps[index] == mStamp && mKeys[index] != id) {
+            index = (index + 1) & mMask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = mKeys;
+        int[] values = mValues;
+        int[] stamps = mStamps;
+        int stamp = mStamp;
+        allocate(capacity);
+        mSize = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (stamps[i] == stamp) {
+                int index = indexOf(keys[i]);
+                mKeys[index] = keys[i];
+                mValues[index] = values[i];
+                mStamps[index] = mStamp;
+                mSize++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        mStamps = new int[capacity];
+        mMask = capacity - 1;
+        mStamp = 1;
+    }
+
+    /**
+     * 负载不超过一半时需要的容量,为2的幂
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long id) {
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
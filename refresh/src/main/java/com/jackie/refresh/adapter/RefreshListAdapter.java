@@ -0,0 +1,317 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.adapter;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 配合{@link com.jackie.refresh.RefreshAdapterView}使用的Adapter,条目具有稳定ID。
+ * 通过{@link #submitList(List)}提交刷新结果时,在后台线程中计算差异,只有内容变化的可见行会被重新绑定;
+ * 有插入或者删除时才通知整个列表,此时ListView根据稳定ID保持当前的位置。
+ * <p>
+ * 所有修改数据的函数都需要在主线程中调用
+ * </p>
+ * Created by on 16/5/26.
+ *
+ * @param <E> 条目数据的类型
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public abstract class RefreshListAdapter<E> extends BaseAdapter implements ItemCallback<E> {
+    /**
+     * 占位条目的ID从这里开始按位置递增
+     */
+    private static final long PLACEHOLDER_ID = Long.MIN_VALUE;
+
+    protected final List<E> mItems = new ArrayList<>();
+    private final AsyncListDiffer<E> mDiffer = new AsyncListDiffer<>(this);
+    /**
+     * 每次直接修改数据时加1,用来判断后台计算的差异是否还有效
+     */
+    private int mModCount;
+    /**
+     * 把差异分发给可见行的回调,由它重新绑定内容变化的行,有插入删除时保持第一个可见行的位置。为null时通知整个列表
+     */
+    private ListUpdateCallback mRowUpdater;
+
+    @Override
+    public int getCount() {
+        return mItems.size();
+    }
+
+    @Override
+    public E getItem(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        E item = mItems.get(position);
+        return item == null ? PLACEHOLDER_ID + position : getStableId(item);
+    }
+
+    /**
+     * @param position 位置
+     * @return 该位置是否是被换出的占位条目,此时{@link #getItem(int)}返回null
+     */
+    public boolean isPlaceholder(int position) {
+        return mItems.get(position) == null;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    /**
+     * 开启{@link com.jackie.refresh.paging.PagedLoader#setPageWindow(int)}后,被换出的条目为null,
+     * 需要显示占位视图
+     */
+    @Override
+    public abstract View getView(int position, View convertView, ViewGroup parent);
+
+    /**
+     * @return 当前所有条目的只读视图
+     */
+    public List<E> getItems() {
+        return Collections.unmodifiableList(mItems);
+    }
+
+    /**
+     * 设置只有内容变化时重新绑定可见行的回调,由{@link com.jackie.refresh.RefreshAdapterView}设置
+     *
+     * @param rowUpdater 回调
+     */
+    public void setRowUpdater(ListUpdateCallback rowUpdater) {
+        mRowUpdater = rowUpdater;
+    }
+
+    /**
+     * 提交新的快照
+     *
+     * @param items 新的快照
+     * @see #submitList(List, Runnable)
+     */
+    public void submitList(List<E> items) {
+        submitList(items, null);
+    }
+
+    /**
+     * 提交新的快照,在后台线程中计算与当前数据的差异,然后在主线程中只分发变化的行
+     *
+     * @param items          新的快照
+     * @param commitCallback 新的快照应用到列表后的回调,可以为null
+     */
+    public void submitList(List<E> items, final Runnable commitCallback) {
+        final int modCount = mModCount;
+        mDiffer.submit(new ArrayList<>(mItems), items, new AsyncListDiffer.Callback<E>() {
+            @Override
+            public void onDiffCalculated(List<E> newList, DiffResult result) {
+                boolean isStale = modCount != mModCount;
+                if (!isStale && !result.hasStructuralChanges() && mRowUpdater != null) {
+                    // 只有内容变化,逐段替换变化的条目,视图类型变化的行不能复用原来的View
+                    if (!result.isEmpty()) {
+                        result.dispatchUpdatesTo(new ChangeApplier(newList));
+                    }
+                    mItems.clear();
+                    mItems.addAll(newList);
+                    mModCount++;
+                } else {
+                    mItems.clear();
+                    mItems.addAll(newList);
+                    mModCount++;
+                    if (isStale || mRowUpdater == null) {
+                        // 计算期间数据被直接修改过,差异已经无效,通知整个列表
+                        notifyDataSetChanged();
+                    } else {
+                        // 有插入删除,由可见行的回调刷新列表并保持第一个可见行的位置
+                        result.dispatchUpdatesTo(mRowUpdater);
+                    }
+                }
+                if (commitCallback != null) {
+                    commitCallback.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * 丢弃还没有应用到列表的快照,它的回调也不会再执行
+     */
+    public void cancelSubmit() {
+        mDiffer.cancel();
+    }
+
+    /**
+     * 直接替换所有条目,不计算差异
+     *
+     * @param items 新的条目
+     */
+    public void setItems(List<E> items) {
+        mDiffer.cancel();
+        mItems.clear();
+        mItems.addAll(items);
+        mModCount++;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 替换一段条目,数量相同并且视图类型没有变化时只重新绑定可见的行,否则通知整个列表。
+     * 用于把距离可见区域很远的页换成占位条目(null),以及滚动回来时换回重新加载的数据
+     *
+     * @param position 开始的位置
+     * @param count    被替换的条目数
+     * @param items    新的条目,可以包含null表示占位条目
+     */
+    public void replaceItems(int position, int count, List<? extends E> items) {
+        if (count == items.size()) {
+            boolean typeChanged = setRange(position, count, items, 0);
+            mModCount++;
+            if (mRowUpdater != null && !typeChanged) {
+                mRowUpdater.onChanged(position, count);
+            } else {
+                notifyDataSetChanged();
+            }
+            return;
+        }
+        List<E> range = mItems.subList(position, position + count);
+        range.clear();
+        range.addAll(items);
+        mModCount++;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 把从position开始的count个条目换成source中从sourceStart开始的条目
+     *
+     * @return 是否有条目的视图类型发生了变化,比如占位条目换成了真正的条目
+     */
+    private boolean setRange(int position, int count, List<? extends E> source,
+                             int sourceStart) {
+        boolean checkType = getViewTypeCount() > 1;
+        boolean typeChanged = false;
+        for (int i = 0; i < count; i++) {
+            int current = position + i;
+            int oldType = checkType ? getItemViewType(current) : 0;
+            mItems.set(current, source.get(sourceStart + i));
+            if (checkType && getItemViewType(current) != oldType) {
+                typeChanged = true;
+            }
+        }
+        return typeChanged;
+    }
+
+    /**
+     * 只有内容变化时,把变化的条目换成新快照中的条目,视图类型没有变化的行交给可见行的回调重新绑定,
+     * 否则通知整个列表
+     */
+    private class ChangeApplier implements ListUpdateCallback {
+        private final List<E> mNewList;
+        private boolean isTypeChanged;
+
+        ChangeApplier(List<E> newList) {
+            mNewList = newList;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            throw new IllegalStateException("Unexpected structural change");
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            throw new IllegalStateException("Unexpected structural change");
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            if (setRange(position, count, mNewList, position)) {
+                isTypeChanged = true;
+            } else if (!isTypeChanged) {
+                mRowUpdater.onChanged(position, count);
+            }
+        }
+
+        @Override
+        public void onDispatchFinished() {
+            if (isTypeChanged) {
+                notifyDataSetChanged();
+            }
+        }
+    }
+
+    /**
+     * 在开头插入加载前一页的结果,调用者需要保持第一个可见行的位置,比如
+     * {@link com.jackie.refresh.RefreshAdapterView#offsetFirstVisiblePosition(int)}
+     *
+     * @param items 新加载的条目
+     */
+    public void prependItems(List<E> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        mItems.addAll(0, items);
+        mModCount++;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 在末尾追加加载更多的结果
+     *
+     * @param items 新加载的条目
+     */
+    public void appendItems(List<E> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        mItems.addAll(items);
+        mModCount++;
+        notifyDataSetChanged();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.adapter;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 配合{@link com.jackie.refresh.impl.RefreshRecyclerView}使用的Adapter,刷新和加载更多的结果以局部插入、
+ * 删除和更新的方式通知列表,只有变化的条目会被重新绑定。通过{@link #submitList(List)}提交刷新结果时,
+ * 在后台线程中根据稳定ID计算差异。
+ * <p>
+ * 所有修改数据的函数都需要在主线程中调用
+ * </p>
+ * Created by on 16/5/25.
+ *
+ * @param <E>  条目数据的类型
+ * @param <VH> ViewHolder的类型
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public abstract class RefreshRecyclerAdapter<E, VH extends RecyclerView.ViewHolder> extends
+        RecyclerView.Adapter<VH> implements ItemCallback<E> {
+    protected final List<E> mItems = new ArrayList<>();
+    private final AsyncListDiffer<E> mDiffer = new AsyncListDiffer<>(this);
+    /**
+     * 每次直接修改数据时加1,用来判断后台计算的差异是否还有效
+     */
+    private int mModCount;
+
+    /**
+     * 把差异分发为RecyclerView的局部通知
+     */
+    private final ListUpdateCallback mUpdateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            notifyItemRangeChanged(position, count);
+        }
+
+        @Override
+        public void onDispatchFinished() {
+            // RecyclerView已经逐个处理了每个通知
+        }
+    };
+
+    public RefreshRecyclerAdapter() {
+        setHasStableIds(true);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItems.size();
+    }
+
+    public E getItem(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getStableId(mItems.get(position));
+    }
+
+    /**
+     * @return 当前所有条目的只读视图
+     */
+    public List<E> getItems() {
+        return Collections.unmodifiableList(mItems);
+    }
+
+    /**
+     * 提交新的快照
+     *
+     * @param items 新的快照
+     * @see #submitList(List, Runnable)
+     */
+    public void submitList(List<E> items) {
+        submitList(items, null);
+    }
+
+    /**
+     * 提交新的快照,在后台线程中计算与当前数据的差异,然后在主线程中只分发变化的条目
+     *
+     * @param items          新的快照
+     * @param commitCallback 新的快照应用到列表后的回调,可以为null
+     */
+    public void submitList(List<E> items, final Runnable commitCallback) {
+        final int modCount = mModCount;
+        mDiffer.submit(new ArrayList<>(mItems), items, new AsyncListDiffer.Callback<E>() {
+            @Override
+            public void onDiffCalculated(List<E> newList, DiffResult result) {
+                boolean isStale = modCount != mModCount;
+                mItems.clear();
+                mItems.addAll(newList);
+                mModCount++;
+                if (isStale) {
+                    // 计算期间数据被直接修改过,差异已经无效
+                    notifyDataSetChanged();
+                } else {
+                    result.dispatchUpdatesTo(mUpdateCallback);
+                }
+                if (commitCallback != null) {
+                    commitCallback.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * 用刷新的结果替换所有条目,在主线程中立即根据稳定ID计算差异,只通知插入、删除和更新的条目,
+     * 位置变化的条目按删除和插入通知。条目很多时使用{@link #submitList(List)}在后台计算
+     *
+     * @param items 新的条目
+     */
+    public void setItems(Collection<? extends E> items) {
+        mDiffer.cancel();
+        List<E> oldItems = new ArrayList<>(mItems);
+        mItems.clear();
+        mItems.addAll(items);
+        mModCount++;
+        ItemDiffer.calculate(oldItems, mItems, this).dispatchUpdatesTo(mUpdateCallback);
+    }
+
+    /**
+     * 在末尾追加加载更多的结果
+     *
+     * @param items 新加载的条目
+     */
+    public void appendItems(Collection<? extends E> items) {
+        insertItems(mItems.size(), items);
+    }
+
+    /**
+     * 在指定位置插入条目
+     *
+     * @param position 插入的位置
+     * @param items    插入的条目
+     */
+    public void insertItems(int position, Collection<? extends E> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        mItems.addAll(position, items);
+        mModCount++;
+        notifyItemRangeInserted(position, items.size());
+    }
+
+    /**
+     * 更新指定位置的条目
+     *
+     * @param position 条目的位置
+     * @param item     新的条目
+     */
+    public void changeItem(int position, E item) {
+        mItems.set(position, item);
+        mModCount++;
+        notifyItemChanged(position);
+    }
+
+    /**
+     * 删除指定范围的条目
+     *
+     * @param position 起始位置
+     * @param count    删除的数量
+     */
+    public void removeItems(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        mItems.subList(position, position + count).clear();
+        mModCount++;
+        notifyItemRangeRemoved(position, count);
+    }
+
+    /**
+     * 删除所有条目
+     */
+    public void clear() {
+        removeItems(0, mItems.size());
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.anim;
+
+/**
+ * 由{@link FrameScheduler}驱动的数值动画,支持减速和弹簧两种曲线。
+ * <p>
+ * 动画进行中再次调用{@link #animateTo(int, float, float, long)}时,从当前的值和速度开始平滑地转向新的目标,
+ * 不需要重新创建动画;调用{@link #cancel()}后停在当前的值上。每一帧的计算都不分配对象。
+ * </p>
+ * Created by on 16/5/23.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class FrameAnimator implements FrameScheduler.FrameCallback {
+    /**
+     * 减速曲线,在给定的时间内从当前值减速到目标值,到达时速度为0。动画进行中转向时从当前的速度开始
+     */
+    public static final int CURVE_DECELERATE = 0;
+    /**
+     * 弹簧曲线,从当前的值和速度开始被弹簧拉向目标值,时长由弹簧的刚度和阻尼决定
+     */
+    public static final int CURVE_SPRING = 1;
+
+    /**
+     * 默认的弹簧刚度
+     */
+    public static final float DEFAULT_STIFFNESS = 400f;
+    /**
+     * 默认的阻尼比,1为临界阻尼,不会越过目标值
+     */
+    public static final float DEFAULT_DAMPING_RATIO = 1f;
+
+    /**
+     * 默认帧间隔,第一帧按照已经过去一帧计算,避免第一帧原地不动
+     */
+    private static final long FRAME_NANOS = 16666667L;
+    /**
+     * 弹簧积分的最大步长
+     */
+    private static final long MAX_STEP_NANOS = 4000000L;
+    private static final float NANOS_PER_SECOND = 1000000000f;
+    /**
+     * 弹簧动画结束时与目标值的最大距离
+     */
+    private static final float VALUE_THRESHOLD = 0.5f;
+    /**
+     * 弹簧动画结束时的最大速度(每秒)
+     */
+    private static final float VELOCITY_THRESHOLD = 10f;
+
+    private final FrameScheduler mScheduler;
+    private Listener mListener;
+
+    private int mCurve = CURVE_DECELERATE;
+    private float mStiffness = DEFAULT_STIFFNESS;
+    private float mDampingRatio = DEFAULT_DAMPING_RATIO;
+
+    /**
+     * 当前的值
+     */
+    private float mValue;
+    /**
+     * 当前的速度(每秒)
+     */
+    private float mVelocity;
+    private float mStartValue;
+    /**
+     * 减速曲线开始时的速度(每秒),从静止开始时就是普通的减速曲线的初速度
+     */
+    private float mStartVelocity;
+    private float mTargetValue;
+    private long mDurationNanos;
+    /**
+     * 动画开始的时间,为0时表示还没有收到第一帧
+     */
+    private long mStartTimeNanos;
+    private long mLastFrameNanos;
+    private boolean isRunning;
+    /**
+     * 每次开始或者转向时加1,用来判断回调中是否开始了新的动画
+     */
+    private int mGeneration;
+
+    public FrameAnimator(FrameScheduler scheduler) {
+        mScheduler = scheduler;
+    }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 设置弹簧参数
+     *
+     * @param stiffness    刚度,越大越快
+     * @param dampingRatio 阻尼比,小于1时会在目标值附近来回振荡
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        if (stiffness <= 0 || dampingRatio <= 0) {
+            throw new IllegalArgumentException("stiffness and damping ratio must be positive");
+        }
+        mStiffness = stiffness;
+        mDampingRatio = dampingRatio;
+    }
+
+    /**
+     * 停止动画并直接设置当前的值,用于与手指拖动的位置同步
+     *
+     * @param value 新的值
+     */
+    public void setValue(float value) {
+        cancel();
+        mValue = value;
+        mVelocity = 0;
+    }
+
+    public float getValue() {
+        return mValue;
+    }
+
+    /**
+     * @return 当前的速度(每秒)
+     */
+    public float getVelocity() {
+        return mVelocity;
+    }
+
+    public float getTargetValue() {
+        return mTargetValue;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * 把当前值、起点和目标值同时平移,动画的进度和速度不变,用于坐标系变化时保持动画连续
+     *
+     * @param delta 平移的距离
+     */
+    public void offsetBy(float delta) {
+        mValue += delta;
+        mStartValue += delta;
+        mTargetValue += delta;
+    }
+
+    /**
+     * 以减速曲线动画到目标值
+     *
+     * @param target         目标值
+     * @param durationMillis 时长(毫秒)
+     */
+    public void decelerateTo(float target, long durationMillis) {
+        animateTo(CURVE_DECELERATE, target, 0, durationMillis);
+    }
+
+    /**
+     * 以弹簧曲线动画到目标值
+     *
+     * @param target   目标值
+     * @param velocity 初始速度(每秒),动画进行中时忽略该值,保持当前的速度
+     */
+    public void springTo(float target, float velocity) {
+        animateTo(CURVE_SPRING, target, velocity, 0);
+    }
+
+    /**
+     * 从当前值动画到目标值,动画进行中时从当前的值和速度转向新的目标
+     *
+     * @param curve          动画曲线,{@link #CURVE_DECELERATE}或者{@link #CURVE_SPRING}
+     * @param target         目标值
+     * @param velocity       弹簧曲线的初始速度(每秒),动画进行中时忽略该值,保持当前的速度
+     * @param durationMillis 减速曲线的时长(毫秒)
+     */
+    public void animateTo(int curve, float target, float velocity, long durationMillis) {
+        if (curve != CURVE_DECELERATE && curve != CURVE_SPRING) {
+            throw new IllegalArgumentException("Unknown curve: " + curve);
+        }
+        mGeneration++;
+        mCurve = curve;
+        mStartValue = mValue;
+        mTargetValue = target;
+        mDurationNanos = Math.max(durationMillis, 0) * 1000000L;
+        mStartTimeNanos = 0;
+        if (!isRunning) {
+            if (curve == CURVE_DECELERATE && mDurationNanos > 0) {
+                // 从静止开始时和二次减速曲线一样,初速度是平均速度的2倍
+                mVelocity = 2f * (target - mValue) * NANOS_PER_SECOND / mDurationNanos;
+            } else {
+                mVelocity = velocity;
+            }
+            isRunning = true;
+            mScheduler.postFrameCallback(this);
+        }
+        mStartVelocity = mVelocity;
+    }
+
+    /**
+     * 停止动画,值停留在当前位置
+     */
+    public void cancel() {
+        if (!isRunning) {
+            return;
+        }
+        isRunning = false;
+        mVelocity = 0;
+        mScheduler.removeFrameCallback(this);
+        if (mListener != null) {
+            mListener.onAnimationEnd(this, true);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isRunning) {
+            return;
+        }
+        if (mStartTimeNanos == 0) {
+            mStartTimeNanos = frameTimeNanos - FRAME_NANOS;
+            if (mLastFrameNanos == 0 || frameTimeNanos - mLastFrameNanos > FRAME_NANOS) {
+                mLastFrameNanos = mStartTimeNanos;
+            }
+        }
+
+        boolean finished = mCurve == CURVE_SPRING ? stepSpring(frameTimeNanos)
+                : stepDecelerate(frameTimeNanos);
+        mLastFrameNanos = frameTimeNanos;
+
+        int generation = mGeneration;
+        if (mListener != null) {
+            mListener.onAnimationUpdate(this, mValue, frameTimeNanos);
+        }
+        if (!isRunning || generation != mGeneration) {
+            // 回调中取消了动画或者转向了新的目标
+            if (isRunning) {
+                mScheduler.postFrameCallback(this);
+            }
+            return;
+        }
+        if (finished) {
+            isRunning = false;
+            mVelocity = 0;
+            if (mListener != null) {
+                mListener.onAnimationEnd(this, false);
+            }
+        } else {
+            mScheduler.postFrameCallback(this);
+        }
+    }
+
+    private boolean stepDecelerate(long frameTimeNanos) {
+        if (mDurationNanos <= 0) {
+            mValue = mTargetValue;
+            mVelocity = 0;
+            return true;
+        }
+        float fraction = Math.min(1f, (frameTimeNanos - mStartTimeNanos) / (float)
+                mDurationNanos);
+        float duration = mDurationNanos / NANOS_PER_SECOND;
+        float distance = mTargetValue - mStartValue;
+        // 三次Hermite插值:开始时的速度是mStartVelocity,到达目标值时速度为0
+        float f2 = fraction * fraction;
+        float f3 = f2 * fraction;
+        mValue = mStartValue + distance * (3f * f2 - 2f * f3)
+                + mStartVelocity * duration * (f3 - 2f * f2 + fraction);
+        mVelocity = distance * 6f * (fraction - f2) / duration
+                + mStartVelocity * (3f * f2 - 4f * fraction + 1f);
+        if (fraction >= 1f) {
+            mValue = mTargetValue;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean stepSpring(long frameTimeNanos) {
+        long elapsed = frameTimeNanos - mLastFrameNanos;
+        float damping = 2f * mDampingRatio * (float) Math.sqrt(mStiffness);
+        while (elapsed > 0) {
+            long step = Math.min(elapsed, MAX_STEP_NANOS);
+            float dt = step / NANOS_PER_SECOND;
+            // 半隐式欧拉积分
+            float acceleration = -mStiffness * (mValue - mTargetValue) - damping * mVelocity;
+            mVelocity += acceleration * dt;
+            mValue += mVelocity * dt;
+            elapsed -= step;
+        }
+        if (Math.abs(mValue - mTargetValue) < VALUE_THRESHOLD
+                && Math.abs(mVelocity) < VELOCITY_THRESHOLD) {
+            mValue = mTargetValue;
+            mVelocity = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 动画回调
+     */
+    public interface Listener {
+        /**
+         * 每一帧计算出新的值后回调
+         *
+         * @param animator       动画
+         * @param value          新的值
+         * @param frameTimeNanos 这一帧的时间
+         */
+        void onAnimationUpdate(FrameAnimator animator, float value, long frameTimeNanos);
+
+        /**
+         * 动画结束
+         *
+         * @param animator 动画
+         * @param canceled 是否被{@link #cancel()}取消
+         */
+        void onAnimationEnd(FrameAnimator animator, boolean canceled);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.anim;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * 与垂直同步信号对齐的帧调度器,4.1及以上版本使用{@link Choreographer},
+ * 以下版本退化为{@link ViewCompat#postOnAnimation(View, Runnable)}
+ * <p>
+ * 只能在主线程中使用
+ * </p>
+ * Created by on 16/5/23.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class VsyncFrameScheduler implements FrameScheduler {
+    private static final boolean USE_CHOREOGRAPHER = Build.VERSION.SDK_INT >= Build
+            .VERSION_CODES.JELLY_BEAN;
+
+    private final View mView;
+    /**
+     * 每个回调对应的适配器,只在第一次调度时创建,之后的每一帧都不再分配对象
+     */
+    private final ArrayList<CallbackAdapter> mAdapters = new ArrayList<>(2);
+
+    /**
+     * @param view 低版本时用来调度动画帧的View
+     */
+    public VsyncFrameScheduler(View view) {
+        mView = view;
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        CallbackAdapter adapter = obtainAdapter(callback);
+        if (adapter.isPosted) {
+            return;
+        }
+        adapter.isPosted = true;
+        if (USE_CHOREOGRAPHER) {
+            if (adapter.mVsyncCallback == null) {
+                adapter.mVsyncCallback = ChoreographerCompat.newFrameCallback(adapter);
+            }
+            ChoreographerCompat.post(adapter.mVsyncCallback);
+        } else {
+            ViewCompat.postOnAnimation(mView, adapter);
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        for (int i = 0; i < mAdapters.size(); i++) {
+            CallbackAdapter adapter = mAdapters.get(i);
+            if (adapter.mCallback == callback) {
+                if (adapter.isPosted) {
+                    adapter.isPosted = false;
+                    if (USE_CHOREOGRAPHER) {
+                        ChoreographerCompat.remove(adapter.mVsyncCallback);
+                    } else {
+                        mView.removeCallbacks(adapter);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private CallbackAdapter obtainAdapter(FrameCallback callback) {
+        for (int i = 0; i < mAdapters.size(); i++) {
+            CallbackAdapter adapter = mAdapters.get(i);
+            if (adapter.mCallback == callback) {
+                return adapter;
+            }
+        }
+        CallbackAdapter adapter = new CallbackAdapter(callback);
+        mAdapters.add(adapter);
+        return adapter;
+    }
+
+    /**
+     * 把{@link FrameCallback}适配为低版本的Runnable,高版本时持有对应的Choreographer回调
+     */
+    private static class CallbackAdapter implements Runnable {
+        private final FrameCallback mCallback;
+        private boolean isPosted;
+        /**
+         * 对应的{@link Choreographer.FrameCallback},低版本时为null
+         */
+        private Object mVsyncCallback;
+
+        CallbackAdapter(FrameCallback callback) {
+            mCallback = callback;
+        }
+
+        void dispatchFrame(long frameTimeNanos) {
+            isPosted = false;
+            mCallback.doFrame(frameTimeNanos);
+        }
+
+        @Override
+        public void run() {
+            dispatchFrame(System.nanoTime());
+        }
+    }
+
+    /**
+     * 隔离对{@link Choreographer}的引用,避免低版本加载类时出错
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerCompat {
+        static Object newFrameCallback(final CallbackAdapter adapter) {
+            return new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    adapter.dispatchFrame(frameTimeNanos);
+                }
+            };
+        }
+
+        static void post(Object callback) {
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) callback);
+        }
+
+        static void remove(Object callback) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback)
+                    callback);
+        }
+    }
+}
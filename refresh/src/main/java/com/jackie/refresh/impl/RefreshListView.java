@@ -42,7 +42,9 @@
 package com.jackie.refresh.impl;
 
 import android.content.Context;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
+import android.view.View;
 import android.widget.ListView;
 import com.jackie.refresh.RefreshAdapterView;
 
@@ -66,6 +68,8 @@ public class RefreshListView extends RefreshAdapterView<ListView> {
         mContentView = new ListView(context);
         // 设置滚动监听器
         mContentView.setOnScrollListener(this);
+        // 5.0及以上版本通过嵌套滚动把列表未消耗的距离交给父布局
+        ViewCompat.setNestedScrollingEnabled(mContentView, true);
     }
 
     @Override
@@ -79,4 +83,19 @@ public class RefreshListView extends RefreshAdapterView<ListView> {
         return mContentView != null && mContentView.getAdapter() != null && mContentView
                 .getLastVisiblePosition() == mContentView.getAdapter().getCount() - 1;
     }
+
+    @Override
+    protected int getDistanceToBottom() {
+        int childCount = mContentView == null ? 0 : mContentView.getChildCount();
+        if (childCount == 0) {
+            return -1;
+        }
+        View firstChild = mContentView.getChildAt(0);
+        View lastChild = mContentView.getChildAt(childCount - 1);
+        // 还没有显示出来的条目按可见条目的平均高度估算
+        int averageHeight = (lastChild.getBottom() - firstChild.getTop()) / childCount;
+        int remainingItems = mContentView.getCount() - 1 - mContentView.getLastVisiblePosition();
+        int visibleBottom = mContentView.getHeight() - mContentView.getPaddingBottom();
+        return Math.max(0, lastChild.getBottom() - visibleBottom) + remainingItems * averageHeight;
+    }
 }
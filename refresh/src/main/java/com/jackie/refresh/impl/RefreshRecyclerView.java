@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.impl;
+
+import android.content.Context;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import com.jackie.refresh.RefreshLayoutBase;
+
+/**
+ * 以{@link RecyclerView}作为内容视图的下拉刷新组件,是否到达顶部和底部直接从LayoutManager的位置得到,
+ * 不需要遍历Adapter。配合{@link com.jackie.refresh.adapter.RefreshRecyclerAdapter}使用时,
+ * 刷新和加载更多的结果以局部插入和更新的方式通知列表,不需要整体重新绑定。
+ * <p>
+ * Created by on 16/5/25.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class RefreshRecyclerView extends RefreshLayoutBase<RecyclerView> {
+    public RefreshRecyclerView(Context context) {
+        super(context);
+    }
+
+    public RefreshRecyclerView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    @Override
+    protected void setupContentView(Context context) {
+        mContentView = new RecyclerView(context);
+        mContentView.setLayoutManager(new LinearLayoutManager(context));
+        // 设置滚动监听器
+        mContentView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+                if (!(layoutManager instanceof LinearLayoutManager)) {
+                    return;
+                }
+                LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+                int first = linearLayoutManager.findFirstVisibleItemPosition();
+                int last = linearLayoutManager.findLastVisibleItemPosition();
+                onContentScrolled(first, last - first + 1, linearLayoutManager.getItemCount());
+            }
+        });
+    }
+
+    public void setAdapter(RecyclerView.Adapter adapter) {
+        mContentView.setAdapter(adapter);
+    }
+
+    public RecyclerView.Adapter getAdapter() {
+        return mContentView.getAdapter();
+    }
+
+    public void setLayoutManager(RecyclerView.LayoutManager layoutManager) {
+        mContentView.setLayoutManager(layoutManager);
+    }
+
+    public RecyclerView.LayoutManager getLayoutManager() {
+        return mContentView.getLayoutManager();
+    }
+
+    @Override
+    protected boolean isTop() {
+        if (mContentView == null) {
+            return false;
+        }
+        RecyclerView.LayoutManager layoutManager = mContentView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            // 没有条目或者第一项完全可见表示到了顶部
+            return layoutManager.getItemCount() == 0 || ((LinearLayoutManager) layoutManager)
+                    .findFirstCompletelyVisibleItemPosition() == 0;
+        }
+        return !mContentView.canScrollVertically(-1);
+    }
+
+    @Override
+    protected boolean isBottom() {
+        if (mContentView == null) {
+            return false;
+        }
+        RecyclerView.LayoutManager layoutManager = mContentView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            int itemCount = layoutManager.getItemCount();
+            return itemCount > 0 && ((LinearLayoutManager) layoutManager)
+                    .findLastVisibleItemPosition() == itemCount - 1;
+        }
+        return !mContentView.canScrollVertically(1);
+    }
+
+    @Override
+    protected int getDistanceToBottom() {
+        if (mContentView == null) {
+            return -1;
+        }
+        return mContentView.computeVerticalScrollRange() - mContentView
+                .computeVerticalScrollOffset() - mContentView.computeVerticalScrollExtent();
+    }
+
+    @Override
+    protected void flingContent(int velocityY) {
+        mContentView.fling(0, velocityY);
+    }
+}
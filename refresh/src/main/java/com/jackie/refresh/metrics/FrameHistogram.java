@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.metrics;
+
+/**
+ * 帧耗时的直方图,每个桶的宽度为1毫秒,超过最大值的帧都记录在最后一个桶中。记录时不分配对象。
+ * <p>
+ * Created by on 16/5/21.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class FrameHistogram {
+    /**
+     * 直方图能够区分的最大帧耗时(毫秒),超过的帧都计入最后一个桶
+     */
+    public static final int MAX_FRAME_MILLIS = 200;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final int[] mBuckets = new int[MAX_FRAME_MILLIS + 1];
+    /**
+     * 记录的总帧数
+     */
+    private int mFrameCount;
+    /**
+     * 丢帧总数
+     */
+    private int mDroppedFrames;
+
+    /**
+     * 记录一帧
+     *
+     * @param frameNanos    这一帧的耗时(纳秒)
+     * @param droppedFrames 这一帧期间丢掉的帧数
+     */
+    public void record(long frameNanos, int droppedFrames) {
+        int millis = (int) Math.min(frameNanos / NANOS_PER_MILLI, MAX_FRAME_MILLIS);
+        mBuckets[Math.max(millis, 0)]++;
+        mFrameCount++;
+        mDroppedFrames += droppedFrames;
+    }
+
+    /**
+     * 将另一个直方图的数据合并到该直方图中
+     *
+     * @param other 另一个直方图
+     */
+    public void add(FrameHistogram other) {
+        for (int i = 0; i < mBuckets.length; i++) {
+            mBuckets[i] += other.mBuckets[i];
+        }
+        mFrameCount += other.mFrameCount;
+        mDroppedFrames += other.mDroppedFrames;
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public void reset() {
+        for (int i = 0; i < mBuckets.length; i++) {
+            mBuckets[i] = 0;
+        }
+        mFrameCount = 0;
+        mDroppedFrames = 0;
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public int getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    /**
+     * 获取指定百分位的帧耗时
+     *
+     * @param percentile 百分位,取值范围(0, 100]
+     * @return 帧耗时(毫秒),没有记录任何帧时返回0
+     */
+    public int getPercentile(float percentile) {
+        if (mFrameCount == 0) {
+            return 0;
+        }
+        int threshold = (int) Math.ceil(mFrameCount * percentile / 100f);
+        int count = 0;
+        for (int i = 0; i < mBuckets.length; i++) {
+            count += mBuckets[i];
+            if (count >= threshold) {
+                return i;
+            }
+        }
+        return MAX_FRAME_MILLIS;
+    }
+
+    public int getP50() {
+        return getPercentile(50);
+    }
+
+    public int getP95() {
+        return getPercentile(95);
+    }
+
+    public int getP99() {
+        return getPercentile(99);
+    }
+
+    @Override
+    public String toString() {
+        return "FrameHistogram{frames=" + mFrameCount + ", dropped=" + mDroppedFrames
+                + ", p50=" + getP50() + "ms, p95=" + getP95() + "ms, p99=" + getP99() + "ms}";
+    }
+}
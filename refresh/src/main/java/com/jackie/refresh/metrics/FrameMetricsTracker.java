@@ -0,0 +1,214 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.metrics;
+
+import com.jackie.refresh.listener.OnFrameMetricsListener;
+
+/**
+ * 记录下拉、回弹、刷新完成和Footer View动画的帧耗时和丢帧数。每种动画都有一个累计的{@link FrameHistogram},
+ * 每次动画结束时通过{@link OnFrameMetricsListener}通知这次动画的结果。
+ * <p>
+ * 所有函数都应该在主线程中调用,记录帧的过程不分配对象
+ * </p>
+ * Created by on 16/5/21.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class FrameMetricsTracker {
+    /**
+     * 没有正在记录的动画
+     */
+    public static final int ANIMATION_NONE = -1;
+    /**
+     * 手指拖动Header View或者Footer View
+     */
+    public static final int ANIMATION_DRAG = 0;
+    /**
+     * 手指抬起后回弹到刷新位置或者初始位置
+     */
+    public static final int ANIMATION_SETTLE = 1;
+    /**
+     * 刷新完成后隐藏Header View
+     */
+    public static final int ANIMATION_REFRESH_COMPLETE = 2;
+    /**
+     * 显示或者隐藏Footer View
+     */
+    public static final int ANIMATION_FOOTER = 3;
+
+    private static final int ANIMATION_COUNT = 4;
+
+    /**
+     * 默认的帧间隔,60fps
+     */
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L;
+
+    private final FrameHistogram[] mHistograms = new FrameHistogram[ANIMATION_COUNT];
+    private final OnFrameMetricsListener mListener;
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+
+    /**
+     * 当前正在记录的动画
+     */
+    private int mAnimation = ANIMATION_NONE;
+    /**
+     * 上一帧的时间,为0时表示下一帧只作为起点,不计入统计
+     */
+    private long mLastFrameNanos;
+    /**
+     * 当前动画的帧数
+     */
+    private int mFrameCount;
+    /**
+     * 当前动画的丢帧数
+     */
+    private int mDroppedFrames;
+
+    /**
+     * @param listener 动画结束时的回调,可以为null
+     */
+    public FrameMetricsTracker(OnFrameMetricsListener listener) {
+        mListener = listener;
+        for (int i = 0; i < ANIMATION_COUNT; i++) {
+            mHistograms[i] = new FrameHistogram();
+        }
+    }
+
+    /**
+     * 设置帧间隔,用于计算丢帧数,默认为60fps
+     *
+     * @param frameIntervalNanos 帧间隔(纳秒)
+     */
+    public void setFrameIntervalNanos(long frameIntervalNanos) {
+        if (frameIntervalNanos <= 0) {
+            throw new IllegalArgumentException("frame interval must be positive");
+        }
+        mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * 开始记录一个动画,如果有正在记录的动画,先结束它
+     *
+     * @param animation 动画类型,比如{@link #ANIMATION_SETTLE}
+     */
+    public void begin(int animation) {
+        if (animation < 0 || animation >= ANIMATION_COUNT) {
+            throw new IllegalArgumentException("Unknown animation: " + animation);
+        }
+        end();
+        mAnimation = animation;
+        mLastFrameNanos = 0;
+        mFrameCount = 0;
+        mDroppedFrames = 0;
+    }
+
+    /**
+     * 记录一帧
+     *
+     * @param frameTimeNanos 这一帧的时间,{@link System#nanoTime()}时基
+     */
+    public void onFrame(long frameTimeNanos) {
+        if (mAnimation == ANIMATION_NONE) {
+            return;
+        }
+        if (mLastFrameNanos != 0) {
+            long duration = frameTimeNanos - mLastFrameNanos;
+            // 四舍五入,帧间隔略有抖动时不算丢帧
+            int dropped = (int) ((duration + mFrameIntervalNanos / 2) / mFrameIntervalNanos) - 1;
+            dropped = Math.max(dropped, 0);
+            mHistograms[mAnimation].record(duration, dropped);
+            mFrameCount++;
+            mDroppedFrames += dropped;
+        }
+        mLastFrameNanos = frameTimeNanos;
+    }
+
+    /**
+     * 标记当前动画处于空闲状态(比如手指停住不动),下一帧只作为起点,避免把空闲时间当成一帧
+     */
+    public void markIdle() {
+        mLastFrameNanos = 0;
+    }
+
+    /**
+     * 结束当前的动画,并通知监听器
+     */
+    public void end() {
+        if (mAnimation == ANIMATION_NONE) {
+            return;
+        }
+        int animation = mAnimation;
+        mAnimation = ANIMATION_NONE;
+        if (mListener != null) {
+            mListener.onAnimationFinished(animation, mFrameCount, mDroppedFrames,
+                    mHistograms[animation]);
+        }
+    }
+
+    /**
+     * @return 当前正在记录的动画类型,没有时返回{@link #ANIMATION_NONE}
+     */
+    public int getAnimation() {
+        return mAnimation;
+    }
+
+    /**
+     * 获取某种动画累计的直方图
+     *
+     * @param animation 动画类型,比如{@link #ANIMATION_DRAG}
+     * @return 累计的直方图
+     */
+    public FrameHistogram getHistogram(int animation) {
+        return mHistograms[animation];
+    }
+
+    /**
+     * 清空所有累计数据
+     */
+    public void reset() {
+        for (FrameHistogram histogram : mHistograms) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.paging;
+
+import android.util.SparseArray;
+
+import java.util.List;
+
+/**
+ * 同时请求多页数据,按页码顺序交付结果。
+ * <p>
+ * 每次{@link #load(int)}把同时进行的请求补充到{@link #setParallelism(int)}个,请求数已满时至少记下多要一页,
+ * 之后每回来一页都用空出来的名额补发;先回来的后面的页先缓存起来,
+ * 等前面的页都到了再按顺序交给{@link Callback#onPageReady(int, List)}。遇到空页时之后的页都被丢弃,
+ * 遇到失败时从失败的页开始都被丢弃,下一次从失败的页重新加载。所有请求都结束后回调
+ * {@link Callback#onFinished(boolean, int, Exception)}。所有函数都需要在主线程中调用
+ * </p>
+ * Created by on 16/5/30.
+ *
+ * @param <E> 条目数据的类型
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class PageSequencer<E> {
+    /**
+     * 默认同时进行的请求数
+     */
+    public static final int DEFAULT_PARALLELISM = 3;
+
+    private final PageFetcher mFetcher;
+    private final Callback<E> mCallback;
+    private int mParallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * 已经回来但是前面还有页没有回来的结果
+     */
+    private final SparseArray<List<E>> mBuffer = new SparseArray<>();
+    /**
+     * 下一个要请求的页码
+     */
+    private int mNextRequestPage;
+    /**
+     * {@link #load(int)}要求请求到的页码(不包含),请求数已满时留到有名额空出来再请求
+     */
+    private int mDemandEndPage;
+    /**
+     * 下一个要交付的页码
+     */
+    private int mNextDeliverPage;
+    /**
+     * 第一个空页或者失败的页,从这一页开始都不再请求和交付
+     */
+    private int mEndPage = Integer.MAX_VALUE;
+    private Exception mError;
+    private int mInFlight;
+    /**
+     * 每次开始新的一轮或者取消时加1,旧的一轮的结果会被丢弃
+     */
+    private int mGeneration;
+
+    /**
+     * @param fetcher  发起请求,结果通过{@link #onPageLoaded(int, int, List)}和
+     *                 {@link #onPageFailed(int, int, Exception)}在主线程中交回来
+     * @param callback 按顺序交付的回调
+     */
+    public PageSequencer(PageFetcher fetcher, Callback<E> callback) {
+        mFetcher = fetcher;
+        mCallback = callback;
+    }
+
+    /**
+     * 设置同时进行的请求数
+     *
+     * @param parallelism 同时进行的请求数,至少为1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        mParallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return mParallelism;
+    }
+
+    /**
+     * @return 还有请求在进行
+     */
+    public boolean isActive() {
+        return mInFlight > 0;
+    }
+
+    /**
+     * @return 下一个要交付的页码
+     */
+    public int getNextPage() {
+        return mNextDeliverPage;
+    }
+
+    /**
+     * 请求后面的页,把同时进行的请求补充到{@link #getParallelism()}个。请求数已满时多要一页,
+     * 等前面的页回来后再请求
+     *
+     * @param fromPage 没有请求在进行时从这一页开始,否则忽略,接着上一次的页码请求
+     */
+    public void load(int fromPage) {
+        if (!isActive()) {
+            mGeneration++;
+            mBuffer.clear();
+            mNextRequestPage = fromPage;
+            mNextDeliverPage = fromPage;
+            mDemandEndPage = fromPage;
+            mEndPage = Integer.MAX_VALUE;
+            mError = null;
+        }
+        mDemandEndPage = Math.max(mDemandEndPage,
+                mNextRequestPage + Math.max(mParallelism - mInFlight, 1));
+        refill();
+    }
+
+    /**
+     * 用空出来的名额请求还没有请求的页,不超过{@link #load(int)}要求的页
+     */
+    private void refill() {
+        while (mInFlight < mParallelism && mNextRequestPage < mEndPage
+                && mNextRequestPage < mDemandEndPage) {
+            mInFlight++;
+            mFetcher.fetchPage(mGeneration, mNextRequestPage++);
+        }
+    }
+
+    /**
+     * 取消所有请求,之后回来的结果都被丢弃
+     */
+    public void cancel() {
+        mGeneration++;
+        mBuffer.clear();
+        mInFlight = 0;
+    }
+
+    /**
+     * 一页加载成功
+     *
+     * @param generation 请求时传给{@link PageFetcher#fetchPage(int, int)}的值
+     * @param page       页码
+     * @param items      这一页的条目,为空时表示没有更多数据
+     */
+    public void onPageLoaded(int generation, int page, List<E> items) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mInFlight--;
+        if (items == null || items.isEmpty()) {
+            mEndPage = Math.min(mEndPage, page);
+        } else if (page < mEndPage) {
+            mBuffer.put(page, items);
+        }
+        dispatch();
+    }
+
+    /**
+     * 一页加载失败
+     *
+     * @param generation 请求时传给{@link PageFetcher#fetchPage(int, int)}的值
+     * @param page       页码
+     * @param error      失败的原因
+     */
+    public void onPageFailed(int generation, int page, Exception error) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mInFlight--;
+        if (page < mEndPage) {
+            mEndPage = page;
+            mError = error;
+        }
+        dispatch();
+    }
+
+    /**
+     * 按顺序交付已经到齐的页,补发请求,所有请求都结束时回调结果
+     */
+    private void dispatch() {
+        int generation = mGeneration;
+        List<E> items;
+        while (mNextDeliverPage < mEndPage && (items = mBuffer.get(mNextDeliverPage)) != null) {
+            mBuffer.remove(mNextDeliverPage);
+            mCallback.onPageReady(mNextDeliverPage++, items);
+            if (generation != mGeneration) {
+                // 回调中取消了
+                return;
+            }
+        }
+        refill();
+        if (mInFlight == 0) {
+            mBuffer.clear();
+            boolean hasMore = mEndPage == Integer.MAX_VALUE || mError != null;
+            mCallback.onFinished(hasMore, mNextDeliverPage, mError);
+        }
+    }
+
+    /**
+     * 发起一页的请求
+     */
+    public interface PageFetcher {
+        /**
+         * 在后台加载一页,完成后在主线程中调用{@link #onPageLoaded(int, int, List)}或者
+         * {@link #onPageFailed(int, int, Exception)}
+         *
+         * @param generation 原样交回的值
+         * @param page       页码
+         */
+        void fetchPage(int generation, int page);
+    }
+
+    /**
+     * 按顺序交付的回调
+     *
+     * @param <E> 条目数据的类型
+     */
+    public interface Callback<E> {
+        /**
+         * 按页码顺序交付一页
+         *
+         * @param page  页码
+         * @param items 这一页的条目,不为空
+         */
+        void onPageReady(int page, List<E> items);
+
+        /**
+         * 所有请求都结束了
+         *
+         * @param hasMore  是否还有更多数据,遇到空页时为false
+         * @param nextPage 下一次应该加载的页码
+         * @param error    失败的原因,没有失败时为null;失败的页就是nextPage
+         */
+        void onFinished(boolean hasMore, int nextPage, Exception error);
+    }
+}
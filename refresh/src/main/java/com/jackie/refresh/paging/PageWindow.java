@@ -0,0 +1,209 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.paging;
+
+import java.util.Arrays;
+
+/**
+ * 记录列表中每一页的起始位置、条目数和状态,用于只在内存中保留可见区域附近的页。
+ * <p>
+ * 所有函数的页码都是数据源的页码,列表中的页是从{@link #getFirstPage()}开始的连续页,
+ * 可以在两端添加。所有函数都需要在主线程中调用
+ * </p>
+ * Created by on 16/6/2.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+final class PageWindow {
+    /**
+     * 条目在内存中
+     */
+    static final int STATE_LOADED = 0;
+    /**
+     * 条目已经被换成占位条目
+     */
+    static final int STATE_EVICTED = 1;
+    /**
+     * 被换出后正在重新加载
+     */
+    static final int STATE_RELOADING = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] mStarts = new int[INITIAL_CAPACITY];
+    private int[] mSizes = new int[INITIAL_CAPACITY];
+    private int[] mStates = new int[INITIAL_CAPACITY];
+    private int mPageCount;
+    /**
+     * 列表中第一页的页码
+     */
+    private int mFirstPage;
+
+    /**
+     * 清空所有页
+     *
+     * @param firstPage 之后添加的第一页的页码
+     */
+    void reset(int firstPage) {
+        mPageCount = 0;
+        mFirstPage = firstPage;
+    }
+
+    /**
+     * 在末尾添加一页已经加载的数据
+     *
+     * @param size 这一页的条目数
+     */
+    void addPage(int size) {
+        ensureCapacity();
+        mStarts[mPageCount] = getItemCount();
+        mSizes[mPageCount] = size;
+        mStates[mPageCount] = STATE_LOADED;
+        mPageCount++;
+    }
+
+    /**
+     * 在开头添加一页已经加载的数据,页码为原来的第一页减1,后面的页的起始位置随之移动
+     *
+     * @param size 这一页的条目数
+     */
+    void addFirstPage(int size) {
+        ensureCapacity();
+        System.arraycopy(mStarts, 0, mStarts, 1, mPageCount);
+        System.arraycopy(mSizes, 0, mSizes, 1, mPageCount);
+        System.arraycopy(mStates, 0, mStates, 1, mPageCount);
+        mPageCount++;
+        mFirstPage--;
+        mStarts[0] = 0;
+        mSizes[0] = size;
+        mStates[0] = STATE_LOADED;
+        for (int i = 1; i < mPageCount; i++) {
+            mStarts[i] += size;
+        }
+    }
+
+    /**
+     * @return 列表中第一页的页码
+     */
+    int getFirstPage() {
+        return mFirstPage;
+    }
+
+    /**
+     * @return 列表中最后一页的页码加1
+     */
+    int getEndPage() {
+        return mFirstPage + mPageCount;
+    }
+
+    int getStart(int page) {
+        return mStarts[page - mFirstPage];
+    }
+
+    int getSize(int page) {
+        return mSizes[page - mFirstPage];
+    }
+
+    int getState(int page) {
+        return mStates[page - mFirstPage];
+    }
+
+    void setState(int page, int state) {
+        mStates[page - mFirstPage] = state;
+    }
+
+    /**
+     * @return 所有页的条目总数
+     */
+    int getItemCount() {
+        return mPageCount == 0 ? 0 : mStarts[mPageCount - 1] + mSizes[mPageCount - 1];
+    }
+
+    /**
+     * 改变一页的条目数,后面的页的起始位置随之移动。重新加载的页与换出前条目数不同时调用
+     *
+     * @param page 页码
+     * @param size 新的条目数
+     */
+    void resize(int page, int size) {
+        int index = page - mFirstPage;
+        int delta = size - mSizes[index];
+        mSizes[index] = size;
+        for (int i = index + 1; i < mPageCount; i++) {
+            mStarts[i] += delta;
+        }
+    }
+
+    /**
+     * 二分查找某个位置所在的页,条目数为0的页不会被返回
+     *
+     * @param position 列表中的位置
+     * @return 页码,不在任何页中时返回-1
+     */
+    int pageAt(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return -1;
+        }
+        int low = 0;
+        int high = mPageCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mStarts[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return mFirstPage + low;
+    }
+
+    private void ensureCapacity() {
+        if (mPageCount == mStarts.length) {
+            int capacity = mPageCount * 2;
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mSizes = Arrays.copyOf(mSizes, capacity);
+            mStates = Arrays.copyOf(mStates, capacity);
+        }
+    }
+}
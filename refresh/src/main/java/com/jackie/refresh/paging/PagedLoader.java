@@ -0,0 +1,982 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.paging;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.jackie.refresh.RefreshAdapterView;
+import com.jackie.refresh.RefreshLayoutBase;
+import com.jackie.refresh.adapter.LongIdIndex;
+import com.jackie.refresh.adapter.RefreshListAdapter;
+import com.jackie.refresh.listener.OnContentScrollListener;
+import com.jackie.refresh.listener.OnLoadListener;
+import com.jackie.refresh.listener.OnLoadPreviousListener;
+import com.jackie.refresh.listener.OnRefreshListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把{@link PagedDataSource}接到{@link RefreshAdapterView}上:下拉刷新、加载更多和加载前一页都在后台线程中调用数据源,
+ * 结果在主线程中交给{@link RefreshListAdapter},然后自动结束刷新或者加载的状态。
+ * <p>
+ * 创建后会替换该View的{@link OnRefreshListener}、{@link OnLoadListener}和{@link OnLoadPreviousListener},
+ * 所有函数都需要在主线程中调用
+ * </p>
+ * Created by on 16/5/29.
+ *
+ * @param <E> 条目数据的类型
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class PagedLoader<E> {
+    private static final String TAG = "PagedLoader";
+    private static ExecutorService sDefaultExecutor;
+
+    private final RefreshAdapterView<?> mRefreshView;
+    private final RefreshListAdapter<E> mAdapter;
+    private final PagedDataSource<E> mDataSource;
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final RefreshCoordinator mCoordinator;
+    /**
+     * 加载更多时同时请求多页,按顺序追加
+     */
+    private final PageSequencer<E> mSequencer;
+    /**
+     * 当前这一轮加载更多的令牌
+     */
+    private int mLoadToken = RefreshCoordinator.NO_TOKEN;
+    /**
+     * 是否有加载更多在等待下一页,下一页追加后结束加载状态
+     */
+    private boolean isAwaitingPage;
+
+    /**
+     * 下一次加载更多的页码
+     */
+    private int mNextPage;
+    /**
+     * 列表中第一页的页码,大于0时可以加载前一页
+     */
+    private int mFirstPage;
+    /**
+     * 数据源是否还有更多数据
+     */
+    private boolean hasMore = true;
+    private OnErrorListener mOnErrorListener;
+    /**
+     * 第一页的快照,为null时不使用快照
+     */
+    private SnapshotStore<E> mSnapshotStore;
+    /**
+     * 是否已经显示过刷新得到的数据,之后不再用快照覆盖
+     */
+    private boolean hasFreshData;
+    /**
+     * 刷新策略,为null时每次都访问网络
+     */
+    private RefreshPolicy mRefreshPolicy;
+    /**
+     * 每一页在列表中的位置和状态,用于换出远离可见区域的页
+     */
+    private final PageWindow mPageWindow = new PageWindow();
+    /**
+     * 可见区域前后各保留的页数,小于0时不换出
+     */
+    private int mWindowPages = -1;
+    /**
+     * 每次刷新后加1,丢弃之前发起的重新加载
+     */
+    private int mWindowGeneration;
+    private int mFirstVisiblePage = -1;
+    private int mLastVisiblePage = -1;
+    /**
+     * 第一个可见行的位置,不管是否设置了页窗口都会更新,替换一页后用来保持第一个可见行不动
+     */
+    private int mFirstVisibleItem = -1;
+    /**
+     * 列表中每个条目的ID所在的页码,用于合并新的一页时去重。被换出的页的ID不在索引中
+     */
+    private final LongIdIndex mIdIndex = new LongIdIndex();
+    /**
+     * 在同一页中重复出现而被丢弃的条目数
+     */
+    private int mDuplicateCount;
+    /**
+     * 已经出现在别的页中而被丢弃的条目数,通常是后端的分页游标漂移导致条目移到了相邻的页
+     */
+    private int mMovedCount;
+    /**
+     * 是否正在后台重新验证第一页
+     */
+    private boolean isRevalidating;
+    /**
+     * 已经提交给Adapter、还在计算差异的刷新的令牌,没有时为{@link RefreshCoordinator#NO_TOKEN}
+     */
+    private int mPendingRefreshToken = RefreshCoordinator.NO_TOKEN;
+
+    private final OnRefreshListener mRefreshListener = new OnRefreshListener() {
+        @Override
+        public void onRefresh() {
+            refresh();
+        }
+    };
+
+    private final OnLoadListener mLoadListener = new OnLoadListener() {
+        @Override
+        public void onLoadMore() {
+            loadMore();
+        }
+    };
+
+    private final OnLoadPreviousListener mLoadPreviousListener = new OnLoadPreviousListener() {
+        @Override
+        public void onLoadPrevious() {
+            loadPrevious();
+        }
+    };
+
+    private final OnContentScrollListener mScrollListener = new OnContentScrollListener() {
+        @Override
+        public void onContentScrolled(int firstVisibleItem, int visibleItemCount,
+                                      int totalItemCount) {
+            mFirstVisibleItem = visibleItemCount > 0 ? firstVisibleItem : -1;
+            if (mWindowPages < 0 || visibleItemCount <= 0) {
+                return;
+            }
+            int firstPage = mPageWindow.pageAt(firstVisibleItem);
+            if (firstPage < 0) {
+                return;
+            }
+            int lastPage = mPageWindow.pageAt(firstVisibleItem + visibleItemCount - 1);
+            if (lastPage < 0) {
+                lastPage = mPageWindow.getEndPage() - 1;
+            }
+            if (firstPage == mFirstVisiblePage && lastPage == mLastVisiblePage) {
+                return;
+            }
+            mFirstVisiblePage = firstPage;
+            mLastVisiblePage = lastPage;
+            updateWindow();
+        }
+    };
+
+    /**
+     * 使用默认的线程池加载数据
+     *
+     * @param refreshView 显示数据的View
+     * @param adapter     条目的Adapter,还没有设置给refreshView时会自动设置
+     * @param dataSource  分页数据源
+     */
+    public PagedLoader(RefreshAdapterView<?> refreshView, RefreshListAdapter<E> adapter,
+                       PagedDataSource<E> dataSource) {
+        this(refreshView, adapter, dataSource, getDefaultExecutor());
+    }
+
+    /**
+     * @param refreshView 显示数据的View
+     * @param adapter     条目的Adapter,还没有设置给refreshView时会自动设置
+     * @param dataSource  分页数据源
+     * @param executor    调用数据源的线程池
+     */
+    public PagedLoader(RefreshAdapterView<?> refreshView, RefreshListAdapter<E> adapter,
+                       PagedDataSource<E> dataSource, Executor executor) {
+        mRefreshView = refreshView;
+        mAdapter = adapter;
+        mDataSource = dataSource;
+        mExecutor = executor;
+        mCoordinator = new RefreshCoordinator(refreshView);
+        mSequencer = new PageSequencer<>(mPageFetcher, mSequencerCallback);
+        if (refreshView.getAdapter() != adapter) {
+            refreshView.setAdapter(adapter);
+        }
+        refreshView.setOnRefreshListener(mRefreshListener);
+        refreshView.setOnLoadListener(mLoadListener);
+        refreshView.setOnContentScrollListener(mScrollListener);
+    }
+
+    /**
+     * 设置第一页的快照。设置后马上在后台读取快照,还没有刷新得到的数据时先显示快照中的条目和更新时间;
+     * 之后每次刷新成功都会在后台保存新的第一页。后台读取完成前列表是空的,冷启动时需要第一帧就显示快照的,
+     * 设置后调用{@link #loadSnapshotNow()}
+     *
+     * @param store 快照,为null时不使用快照
+     */
+    public void setSnapshotStore(final SnapshotStore<E> store) {
+        mSnapshotStore = store;
+        if (store == null) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final SnapshotStore.Snapshot<E> snapshot;
+                try {
+                    snapshot = store.load();
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to load snapshot", e);
+                    return;
+                }
+                if (snapshot == null) {
+                    return;
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        showSnapshot(store, snapshot);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在当前线程中读取并显示快照,用于冷启动时在第一帧之前显示缓存的数据。
+     * 会在主线程中读取文件,快照需要足够小
+     *
+     * @return 是否显示了快照,没有设置快照、快照不存在或者已经有数据时返回false
+     */
+    public boolean loadSnapshotNow() {
+        SnapshotStore<E> store = mSnapshotStore;
+        if (store == null || hasFreshData || mAdapter.getCount() > 0) {
+            return false;
+        }
+        SnapshotStore.Snapshot<E> snapshot;
+        try {
+            snapshot = store.load();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to load snapshot", e);
+            return false;
+        }
+        return snapshot != null && showSnapshot(store, snapshot);
+    }
+
+    /**
+     * 还没有数据时显示快照中的条目和更新时间
+     *
+     * @return 是否显示了快照
+     */
+    private boolean showSnapshot(SnapshotStore<E> store, SnapshotStore.Snapshot<E> snapshot) {
+        if (mSnapshotStore != store || hasFreshData || mAdapter.getCount() > 0) {
+            return false;
+        }
+        mNextPage = 1;
+        mIdIndex.clear();
+        List<E> items = dedupPage(0, snapshot.getItems());
+        mAdapter.setItems(items);
+        resetWindow(0, items.size());
+        mRefreshView.setLastUpdateTime(snapshot.getUpdateTime());
+        return true;
+    }
+
+    /**
+     * 在后台保存第一页的快照
+     *
+     * @param items 第一页的条目
+     */
+    private void saveSnapshot(List<E> items) {
+        final SnapshotStore<E> store = mSnapshotStore;
+        if (store == null) {
+            return;
+        }
+        final List<E> snapshot = new ArrayList<>(items);
+        final long updateTime = mRefreshView.getLastUpdateTime();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    store.save(snapshot, updateTime);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to save snapshot", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 设置刷新策略,根据上次更新的时间决定下拉刷新时是否访问网络
+     *
+     * @param policy 刷新策略,为null时每次都访问网络
+     */
+    public void setRefreshPolicy(RefreshPolicy policy) {
+        mRefreshPolicy = policy;
+    }
+
+    public RefreshPolicy getRefreshPolicy() {
+        return mRefreshPolicy;
+    }
+
+    /**
+     * 设置加载失败的回调
+     *
+     * @param listener 在主线程中回调
+     */
+    public void setOnErrorListener(OnErrorListener listener) {
+        mOnErrorListener = listener;
+    }
+
+    /**
+     * @return 保证刷新和加载更多不会重叠的协调器,可以用来设置超时时间和读取取消、超时的次数
+     */
+    public RefreshCoordinator getCoordinator() {
+        return mCoordinator;
+    }
+
+    /**
+     * 设置加载更多时同时请求的页数,需要配合多线程的线程池使用
+     *
+     * @param parallelism 同时请求的页数,默认为{@link PageSequencer#DEFAULT_PARALLELISM}
+     */
+    public void setParallelism(int parallelism) {
+        mSequencer.setParallelism(parallelism);
+    }
+
+    /**
+     * 只在内存中保留可见区域前后若干页的条目,更远的页换成占位条目(null),滚动回来时重新从数据源加载。
+     * <p>
+     * 被换出的页保留原来的条目数,列表的总高度和滚动位置不变;重新加载后条目数不同时,
+     * 第一个可见行也会停留在原来的位置。Adapter需要为null条目显示占位视图
+     * </p>
+     *
+     * @param pages 可见区域前后各保留的页数,小于0时不换出并且重新加载所有被换出的页
+     */
+    public void setPageWindow(int pages) {
+        mWindowPages = pages;
+        if (pages < 0 || mFirstVisiblePage >= 0) {
+            updateWindow();
+        }
+    }
+
+    /**
+     * @return 数据源是否还有更多数据
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * 重新加载第一页,用新的数据替换当前的条目,完成后结束刷新状态。下拉刷新时自动调用,
+     * 会取消正在进行的加载更多。设置了{@link RefreshPolicy}时先由它决定是否访问网络
+     */
+    public void refresh() {
+        if (mRefreshPolicy != null) {
+            int decision = mRefreshPolicy.decide(mRefreshView.getLastUpdateTime(),
+                    System.currentTimeMillis(), mAdapter.getCount() > 0, mCoordinator.isRefreshing());
+            switch (decision) {
+                case RefreshPolicy.DECISION_COALESCE:
+                    // 正在进行的刷新完成时会结束刷新状态
+                    return;
+                case RefreshPolicy.DECISION_SKIP:
+                    mRefreshView.refreshComplete(false);
+                    return;
+                case RefreshPolicy.DECISION_SERVE_STALE_REVALIDATE:
+                    if (mFirstPage != 0) {
+                        // 列表不是从第0页开始的,只能整个替换
+                        break;
+                    }
+                    // 先结束刷新状态,在后台重新加载第一页,不影响加载更多和已经滚动到的页
+                    mRefreshView.refreshComplete(false);
+                    revalidate();
+                    return;
+                default:
+                    break;
+            }
+        }
+        fetchInitialPage(0);
+    }
+
+    /**
+     * 在后台重新加载第0页,完成后更新时间但不再滚动Header View。不占用协调器中的刷新,
+     * 加载更多可以同时进行;期间有新的刷新时丢弃结果。
+     * <p>
+     * 第一页的条目数和最后一个条目都没有变化时只替换第一页;否则条目可能跨过了第一页和第二页的边界,
+     * 只替换第一页会丢失或者重复条目,这时整个列表换成新的第一页,和刷新一样计算差异
+     * </p>
+     */
+    private void revalidate() {
+        if (isRevalidating) {
+            return;
+        }
+        isRevalidating = true;
+        final int generation = mWindowGeneration;
+        fetch(0, new PageCallback<E>() {
+            @Override
+            public void onPageLoaded(List<E> items) {
+                isRevalidating = false;
+                if (generation != mWindowGeneration || mFirstPage != 0
+                        || mPendingRefreshToken != RefreshCoordinator.NO_TOKEN
+                        || mPageWindow.getItemCount() != mAdapter.getCount()) {
+                    return;
+                }
+                if (mPageWindow.getState(0) != PageWindow.STATE_LOADED) {
+                    // 第一页已经被换出,滚动回来时会重新加载
+                    hasFreshData = true;
+                    mRefreshView.setLastUpdateTime(System.currentTimeMillis());
+                    return;
+                }
+                int size = mPageWindow.getSize(0);
+                if (items.size() != size || size == 0 || mAdapter.getStableId(items.get(size - 1))
+                        != mAdapter.getStableId(mAdapter.getItem(size - 1))) {
+                    applyInitialPage(beginInitialPage(), 0, items, true);
+                    return;
+                }
+                hasFreshData = true;
+                mRefreshView.setLastUpdateTime(System.currentTimeMillis());
+                // 旧的第一页的ID不再有效,其他页的ID保留
+                for (int i = 0; i < size; i++) {
+                    mIdIndex.remove(mAdapter.getStableId(mAdapter.getItem(i)));
+                }
+                saveSnapshot(replacePage(0, items));
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {
+                isRevalidating = false;
+                if (generation != mWindowGeneration) {
+                    return;
+                }
+                notifyError(0, e);
+            }
+        });
+    }
+
+    /**
+     * 从指定的页开始显示,用新的数据替换当前的条目,比如从上次阅读的位置打开聊天记录。
+     * 前面的页在滚动到顶部时加载,下拉刷新会回到第0页
+     *
+     * @param page 开始的页码
+     */
+    public void loadFrom(int page) {
+        fetchInitialPage(page);
+    }
+
+    private void fetchInitialPage(final int page) {
+        final int token = beginInitialPage();
+        fetch(page, new PageCallback<E>() {
+            @Override
+            public void onPageLoaded(List<E> result) {
+                if (!mCoordinator.isRefreshCurrent(token)) {
+                    // 已经被新的刷新代替或者已经超时
+                    return;
+                }
+                applyInitialPage(token, page, result, false);
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {
+                if (!mCoordinator.finishRefresh(token)) {
+                    return;
+                }
+                mRefreshView.refreshComplete(false);
+                notifyError(page, e);
+            }
+        });
+    }
+
+    /**
+     * 占用协调器中的刷新,停止所有会修改条目的加载
+     *
+     * @return 刷新的令牌
+     */
+    private int beginInitialPage() {
+        int token = mCoordinator.beginRefresh();
+        // 协调器已经取消了加载更多,丢弃还没有回来的页
+        mSequencer.cancel();
+        isAwaitingPage = false;
+        // 刷新会替换所有条目,之前发起的重新加载已经没有意义
+        mWindowGeneration++;
+        return token;
+    }
+
+    /**
+     * 用一页数据替换所有条目,差异应用到列表之后才结束刷新
+     *
+     * @param token  {@link #beginInitialPage()}返回的令牌
+     * @param page   页码
+     * @param result 数据源返回的条目
+     * @param silent 是否是后台的重新验证,为true时只更新时间,不结束用户看不到的刷新状态
+     */
+    private void applyInitialPage(final int token, final int page, final List<E> result,
+                                  final boolean silent) {
+        // 新的一页替换所有条目,之前的ID都不再有效
+        mIdIndex.clear();
+        final List<E> items = dedupPage(page, result);
+        // 差异应用到列表之前一直占用刷新,加载更多和加载前一页不会在这期间修改条目
+        mPendingRefreshToken = token;
+        mAdapter.submitList(items, new Runnable() {
+            @Override
+            public void run() {
+                if (mPendingRefreshToken == token) {
+                    mPendingRefreshToken = RefreshCoordinator.NO_TOKEN;
+                }
+                boolean current = mCoordinator.finishRefresh(token);
+                mNextPage = page + 1;
+                hasMore = !result.isEmpty();
+                hasFreshData = true;
+                resetWindow(page, items.size());
+                if (silent && mRefreshView.getStatus() != RefreshLayoutBase.STATUS_REFRESHING) {
+                    mRefreshView.setLastUpdateTime(System.currentTimeMillis());
+                    // 列表只剩下第一页,重新允许加载更多
+                    mRefreshView.loadCompute(hasMore);
+                } else if (current || !mCoordinator.isRefreshing()) {
+                    // 超时后才应用时也更新时间;已经有新的刷新时由它结束刷新状态
+                    mRefreshView.refreshComplete();
+                }
+                if (page == 0) {
+                    saveSnapshot(items);
+                }
+            }
+        });
+    }
+
+    /**
+     * 加载后面的页,按顺序追加到当前条目的末尾,下一页追加后结束加载状态。滚动到底部时自动调用。
+     * <p>
+     * 同时请求{@link #setParallelism(int)}页,先回来的页等前面的页到了再追加。所有请求占用协调器中唯一的加载更多,
+     * 正在刷新时忽略;上一轮还有请求在进行时只补充请求数
+     * </p>
+     */
+    public void loadMore() {
+        if (mSequencer.isActive() && mCoordinator.isLoadCurrent(mLoadToken)) {
+            isAwaitingPage = true;
+            mSequencer.load(mNextPage);
+            return;
+        }
+        int token = hasMore ? mCoordinator.beginLoad() : RefreshCoordinator.NO_TOKEN;
+        if (token == RefreshCoordinator.NO_TOKEN) {
+            mRefreshView.loadCompute(hasMore);
+            return;
+        }
+        mLoadToken = token;
+        isAwaitingPage = true;
+        mSequencer.cancel();
+        mSequencer.load(mNextPage);
+    }
+
+    /**
+     * 加载列表中第一页的前一页,插入到开头,第一个可见行保持不动。滚动到接近顶部时自动调用,
+     * 可以和加载更多同时进行,正在刷新时忽略
+     */
+    public void loadPrevious() {
+        if (mCoordinator.isLoadingPrevious()) {
+            return;
+        }
+        final int token = mFirstPage > 0 ? mCoordinator.beginLoadPrevious()
+                : RefreshCoordinator.NO_TOKEN;
+        if (token == RefreshCoordinator.NO_TOKEN) {
+            mRefreshView.loadPreviousComplete();
+            return;
+        }
+        final int page = mFirstPage - 1;
+        fetch(page, new PageCallback<E>() {
+            @Override
+            public void onPageLoaded(List<E> items) {
+                if (!mCoordinator.finishLoadPrevious(token)) {
+                    return;
+                }
+                prependPage(page, items);
+                mRefreshView.loadPreviousComplete();
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {
+                if (!mCoordinator.finishLoadPrevious(token)) {
+                    return;
+                }
+                mRefreshView.loadPreviousComplete();
+                notifyError(page, e);
+            }
+        });
+    }
+
+    /**
+     * 把前一页插入到开头,并让第一个可见行停留在原来的位置
+     *
+     * @param page  页码
+     * @param items 这一页的条目
+     */
+    private void prependPage(int page, List<E> result) {
+        dropPendingRefresh();
+        List<E> items = dedupPage(page, result);
+        mFirstPage = page;
+        updateLoadPreviousListener();
+        mPageWindow.addFirstPage(items.size());
+        if (items.isEmpty()) {
+            return;
+        }
+        mAdapter.prependItems(items);
+        mRefreshView.offsetFirstVisiblePosition(items.size());
+    }
+
+    /**
+     * 列表前面还有页时才监听加载前一页,已经到第0页时顶部只有下拉刷新
+     */
+    private void updateLoadPreviousListener() {
+        mRefreshView.setOnLoadPreviousListener(mFirstPage > 0 ? mLoadPreviousListener : null);
+    }
+
+    /**
+     * 在后台加载{@link PageSequencer}请求的页,结果交回给它排序
+     */
+    private final PageSequencer.PageFetcher mPageFetcher = new PageSequencer.PageFetcher() {
+        @Override
+        public void fetchPage(final int generation, final int page) {
+            final int token = mLoadToken;
+            fetch(page, new PageCallback<E>() {
+                @Override
+                public void onPageLoaded(List<E> items) {
+                    if (mCoordinator.isLoadCurrent(token)) {
+                        mSequencer.onPageLoaded(generation, page, items);
+                    }
+                }
+
+                @Override
+                public void onPageFailed(Exception e) {
+                    if (mCoordinator.isLoadCurrent(token)) {
+                        mSequencer.onPageFailed(generation, page, e);
+                    }
+                }
+            });
+        }
+    };
+
+    /**
+     * 刷新的差异还没有应用时要直接修改条目,说明刷新已经超时或者被取消,丢弃它的结果,
+     * 否则差异应用时会覆盖这期间追加的条目
+     */
+    private void dropPendingRefresh() {
+        if (mPendingRefreshToken != RefreshCoordinator.NO_TOKEN) {
+            mPendingRefreshToken = RefreshCoordinator.NO_TOKEN;
+            mAdapter.cancelSubmit();
+        }
+    }
+
+    private final PageSequencer.Callback<E> mSequencerCallback = new PageSequencer.Callback<E>() {
+        @Override
+        public void onPageReady(int page, List<E> result) {
+            dropPendingRefresh();
+            mCoordinator.renewLoad(mLoadToken);
+            List<E> items = dedupPage(page, result);
+            mNextPage = page + 1;
+            mAdapter.appendItems(items);
+            mPageWindow.addPage(items.size());
+            if (isAwaitingPage) {
+                isAwaitingPage = false;
+                mRefreshView.loadCompute();
+            }
+        }
+
+        @Override
+        public void onFinished(boolean more, int nextPage, Exception error) {
+            if (!mCoordinator.finishLoad(mLoadToken)) {
+                return;
+            }
+            mNextPage = nextPage;
+            hasMore = more;
+            // 前面的页已经结束了加载状态时也要告诉它有没有更多数据
+            isAwaitingPage = false;
+            mRefreshView.loadCompute(more);
+            if (error != null) {
+                notifyError(nextPage, error);
+            }
+        }
+    };
+
+    /**
+     * 列表只剩下一页
+     *
+     * @param page 这一页的页码
+     * @param size 这一页的条目数
+     */
+    private void resetWindow(int page, int size) {
+        mFirstPage = page;
+        updateLoadPreviousListener();
+        mWindowGeneration++;
+        mPageWindow.reset(page);
+        mPageWindow.addPage(size);
+        mFirstVisiblePage = -1;
+        mLastVisiblePage = -1;
+    }
+
+    private boolean isInWindow(int page) {
+        return mWindowPages < 0 || (page >= mFirstVisiblePage - mWindowPages
+                && page <= mLastVisiblePage + mWindowPages);
+    }
+
+    /**
+     * 换出窗口外的页,重新加载窗口内被换出的页
+     */
+    private void updateWindow() {
+        if (mPendingRefreshToken != RefreshCoordinator.NO_TOKEN) {
+            // 条目马上会被刷新的结果替换
+            return;
+        }
+        if (mPageWindow.getItemCount() != mAdapter.getCount()) {
+            // 条目被直接修改过,页的位置已经不可信
+            return;
+        }
+        for (int page = mPageWindow.getFirstPage(); page < mPageWindow.getEndPage(); page++) {
+            int state = mPageWindow.getState(page);
+            boolean inWindow = isInWindow(page);
+            if (!inWindow && state == PageWindow.STATE_LOADED) {
+                evictPage(page);
+            } else if (inWindow && state == PageWindow.STATE_EVICTED) {
+                reloadPage(page);
+            }
+        }
+    }
+
+    private void evictPage(int page) {
+        int start = mPageWindow.getStart(page);
+        int size = mPageWindow.getSize(page);
+        mPageWindow.setState(page, PageWindow.STATE_EVICTED);
+        // 重新加载时这一页的条目可能变化,换出时先把ID移出索引
+        for (int i = 0; i < size; i++) {
+            mIdIndex.remove(mAdapter.getStableId(mAdapter.getItem(start + i)));
+        }
+        if (size > 0) {
+            mAdapter.replaceItems(start, size,
+                    Collections.<E>nCopies(size, null));
+        }
+    }
+
+    private void reloadPage(final int page) {
+        mPageWindow.setState(page, PageWindow.STATE_RELOADING);
+        final int generation = mWindowGeneration;
+        fetch(page, new PageCallback<E>() {
+            @Override
+            public void onPageLoaded(List<E> items) {
+                if (generation != mWindowGeneration
+                        || mPendingRefreshToken != RefreshCoordinator.NO_TOKEN
+                        || mPageWindow.getItemCount() != mAdapter.getCount()) {
+                    return;
+                }
+                restorePage(page, items);
+            }
+
+            @Override
+            public void onPageFailed(Exception e) {
+                if (generation != mWindowGeneration) {
+                    return;
+                }
+                // 保留占位条目,可见的页变化时再重试
+                mPageWindow.setState(page, PageWindow.STATE_EVICTED);
+                notifyError(page, e);
+            }
+        });
+    }
+
+    /**
+     * 用重新加载的条目替换占位条目
+     *
+     * @param page  页码
+     * @param items 重新加载的条目
+     */
+    private void restorePage(int page, List<E> result) {
+        if (!isInWindow(page)) {
+            // 加载期间已经滚动远了
+            mPageWindow.setState(page, PageWindow.STATE_EVICTED);
+            return;
+        }
+        replacePage(page, result);
+    }
+
+    /**
+     * 用新加载的条目替换一页,条目数变化时第一个可见行停留在原来的位置
+     *
+     * @param page   页码
+     * @param result 数据源返回的条目
+     * @return 去重后的条目
+     */
+    private List<E> replacePage(int page, List<E> result) {
+        List<E> items = dedupPage(page, result);
+        int start = mPageWindow.getStart(page);
+        int oldSize = mPageWindow.getSize(page);
+        mPageWindow.setState(page, PageWindow.STATE_LOADED);
+        mAdapter.replaceItems(start, oldSize, items);
+        if (items.size() != oldSize) {
+            mPageWindow.resize(page, items.size());
+            if (mFirstVisibleItem >= start + oldSize) {
+                // 第一个可见行在这一页后面,不管是否设置了页窗口都保持它不动
+                mFirstVisibleItem += items.size() - oldSize;
+                mRefreshView.offsetFirstVisiblePosition(items.size() - oldSize);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 把一页的ID加入索引,丢弃已经在列表中出现过的条目
+     *
+     * @param page  页码
+     * @param items 数据源返回的条目
+     * @return 去重后的条目,没有重复时就是传入的列表
+     */
+    private List<E> dedupPage(int page, List<E> items) {
+        List<E> result = items;
+        for (int i = 0, size = items.size(); i < size; i++) {
+            E item = items.get(i);
+            int owner = mIdIndex.putIfAbsent(mAdapter.getStableId(item), page);
+            if (owner == LongIdIndex.NO_VALUE) {
+                if (result != items) {
+                    result.add(item);
+                }
+                continue;
+            }
+            if (owner == page) {
+                mDuplicateCount++;
+            } else {
+                mMovedCount++;
+            }
+            if (result == items) {
+                // 第一次遇到重复时才复制前面的条目
+                result = new ArrayList<>(items.subList(0, i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return 在同一页中重复出现而被丢弃的条目数
+     */
+    public int getDuplicateCount() {
+        return mDuplicateCount;
+    }
+
+    /**
+     * @return 已经出现在别的页中而被丢弃的条目数,比如后端分页游标漂移时移到相邻页的条目
+     */
+    public int getMovedCount() {
+        return mMovedCount;
+    }
+
+    /**
+     * 在后台线程中加载一页,然后在主线程中回调
+     *
+     * @param page     页码
+     * @param callback 主线程中的回调
+     */
+    private void fetch(final int page, final PageCallback<E> callback) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<E> items = null;
+                Exception error = null;
+                try {
+                    items = mDataSource.loadPage(page);
+                } catch (Exception e) {
+                    error = e;
+                }
+                final List<E> result = items == null ? Collections.<E>emptyList() : items;
+                final Exception failure = error;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (failure != null) {
+                            callback.onPageFailed(failure);
+                        } else {
+                            callback.onPageLoaded(result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void notifyError(int page, Exception e) {
+        if (mOnErrorListener != null) {
+            mOnErrorListener.onLoadError(page, e);
+        }
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newFixedThreadPool(PageSequencer.DEFAULT_PARALLELISM,
+                    new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "RefreshPagedLoader #"
+                                    + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return sDefaultExecutor;
+    }
+
+    /**
+     * 一页数据加载完成的回调,在主线程中调用
+     */
+    private interface PageCallback<E> {
+        void onPageLoaded(List<E> items);
+
+        void onPageFailed(Exception e);
+    }
+
+    /**
+     * 加载失败的回调
+     */
+    public interface OnErrorListener {
+        /**
+         * 在主线程中回调,此时刷新或者加载的状态已经结束。加载更多失败后不会自动重试,
+         * 可以调用{@link com.jackie.refresh.RefreshLayoutBase#retryLoadMore()}
+         *
+         * @param page 加载失败的页码,0表示下拉刷新
+         * @param e    数据源抛出的异常
+         */
+        void onLoadError(int page, Exception e);
+    }
+}
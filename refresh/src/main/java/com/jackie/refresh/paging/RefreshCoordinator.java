@@ -0,0 +1,348 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.paging;
+
+import com.jackie.refresh.RefreshLayoutBase;
+
+/**
+ * 保证同一时间最多只有一个刷新、一个加载更多和一个加载前一页在进行。
+ * <p>
+ * 每次开始刷新或者加载时返回一个令牌,结果回来时用{@link #finishRefresh(int)}、{@link #finishLoad(int)}
+ * 或者{@link #finishLoadPrevious(int)}检查令牌是否还有效:新的刷新会取消正在进行的加载,超时的操作会让指示器回到空闲状态,
+ * 被取消或者超时的操作的结果都应该丢弃。所有函数都需要在主线程中调用
+ * </p>
+ * Created by on 16/5/30.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class RefreshCoordinator {
+    /**
+     * 无效的令牌,表示操作没有开始
+     */
+    public static final int NO_TOKEN = 0;
+    /**
+     * 默认的刷新超时时间(毫秒)
+     */
+    public static final long DEFAULT_REFRESH_TIMEOUT = 15000;
+    /**
+     * 默认的加载更多超时时间(毫秒)
+     */
+    public static final long DEFAULT_LOAD_TIMEOUT = 15000;
+
+    private final RefreshLayoutBase<?> mRefreshView;
+    private long mRefreshTimeout = DEFAULT_REFRESH_TIMEOUT;
+    private long mLoadTimeout = DEFAULT_LOAD_TIMEOUT;
+
+    /**
+     * 上一次发出的令牌
+     */
+    private int mLastToken;
+    /**
+     * 正在进行的刷新的令牌
+     */
+    private int mRefreshToken = NO_TOKEN;
+    /**
+     * 正在进行的加载更多的令牌
+     */
+    private int mLoadToken = NO_TOKEN;
+    /**
+     * 正在进行的加载前一页的令牌
+     */
+    private int mLoadPreviousToken = NO_TOKEN;
+
+    private int mCancelCount;
+    private int mRefreshTimeoutCount;
+    private int mLoadTimeoutCount;
+
+    private final Runnable mRefreshTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mRefreshToken != NO_TOKEN) {
+                mRefreshToken = NO_TOKEN;
+                mRefreshTimeoutCount++;
+                mRefreshView.refreshComplete(false);
+            }
+        }
+    };
+
+    private final Runnable mLoadTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mLoadToken != NO_TOKEN) {
+                mLoadToken = NO_TOKEN;
+                mLoadTimeoutCount++;
+                mRefreshView.loadCompute();
+            }
+        }
+    };
+
+    private final Runnable mLoadPreviousTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mLoadPreviousToken != NO_TOKEN) {
+                mLoadPreviousToken = NO_TOKEN;
+                mLoadTimeoutCount++;
+                mRefreshView.loadPreviousComplete();
+            }
+        }
+    };
+
+    /**
+     * @param refreshView 超时或者取消时结束刷新和加载状态的View
+     */
+    public RefreshCoordinator(RefreshLayoutBase<?> refreshView) {
+        mRefreshView = refreshView;
+    }
+
+    /**
+     * 设置超时时间
+     *
+     * @param refreshTimeout 刷新的超时时间(毫秒),小于等于0时不会超时
+     * @param loadTimeout    加载更多和加载前一页的超时时间(毫秒),小于等于0时不会超时
+     */
+    public void setTimeouts(long refreshTimeout, long loadTimeout) {
+        mRefreshTimeout = refreshTimeout;
+        mLoadTimeout = loadTimeout;
+    }
+
+    /**
+     * 开始刷新,取消正在进行的加载更多和加载前一页;已经有刷新在进行时,旧的刷新被新的代替
+     *
+     * @return 这次刷新的令牌
+     */
+    public int beginRefresh() {
+        if (mRefreshToken != NO_TOKEN) {
+            mCancelCount++;
+        }
+        cancelLoad();
+        cancelLoadPrevious();
+        mRefreshToken = nextToken();
+        mRefreshView.removeCallbacks(mRefreshTimeoutRunnable);
+        if (mRefreshTimeout > 0) {
+            mRefreshView.postDelayed(mRefreshTimeoutRunnable, mRefreshTimeout);
+        }
+        return mRefreshToken;
+    }
+
+    /**
+     * 开始加载更多,正在刷新或者已经在加载时不能开始
+     *
+     * @return 这次加载的令牌,不能开始时返回{@link #NO_TOKEN}
+     */
+    public int beginLoad() {
+        if (mRefreshToken != NO_TOKEN || mLoadToken != NO_TOKEN) {
+            return NO_TOKEN;
+        }
+        mLoadToken = nextToken();
+        if (mLoadTimeout > 0) {
+            mRefreshView.postDelayed(mLoadTimeoutRunnable, mLoadTimeout);
+        }
+        return mLoadToken;
+    }
+
+    /**
+     * 开始加载前一页,可以和加载更多同时进行;正在刷新或者已经在加载前一页时不能开始
+     *
+     * @return 这次加载的令牌,不能开始时返回{@link #NO_TOKEN}
+     */
+    public int beginLoadPrevious() {
+        if (mRefreshToken != NO_TOKEN || mLoadPreviousToken != NO_TOKEN) {
+            return NO_TOKEN;
+        }
+        mLoadPreviousToken = nextToken();
+        if (mLoadTimeout > 0) {
+            mRefreshView.postDelayed(mLoadPreviousTimeoutRunnable, mLoadTimeout);
+        }
+        return mLoadPreviousToken;
+    }
+
+    /**
+     * 刷新的结果回来时调用
+     *
+     * @param token {@link #beginRefresh()}返回的令牌
+     * @return 令牌还有效时返回{@code true},此时调用者应用结果并结束刷新状态;否则应该丢弃结果
+     */
+    public boolean finishRefresh(int token) {
+        if (token == NO_TOKEN || token != mRefreshToken) {
+            return false;
+        }
+        mRefreshToken = NO_TOKEN;
+        mRefreshView.removeCallbacks(mRefreshTimeoutRunnable);
+        return true;
+    }
+
+    /**
+     * 加载更多的结果回来时调用
+     *
+     * @param token {@link #beginLoad()}返回的令牌
+     * @return 令牌还有效时返回{@code true},此时调用者应用结果并结束加载状态;否则应该丢弃结果
+     */
+    public boolean finishLoad(int token) {
+        if (token == NO_TOKEN || token != mLoadToken) {
+            return false;
+        }
+        mLoadToken = NO_TOKEN;
+        mRefreshView.removeCallbacks(mLoadTimeoutRunnable);
+        return true;
+    }
+
+    /**
+     * 加载前一页的结果回来时调用
+     *
+     * @param token {@link #beginLoadPrevious()}返回的令牌
+     * @return 令牌还有效时返回{@code true},此时调用者应用结果并结束加载状态;否则应该丢弃结果
+     */
+    public boolean finishLoadPrevious(int token) {
+        if (token == NO_TOKEN || token != mLoadPreviousToken) {
+            return false;
+        }
+        mLoadPreviousToken = NO_TOKEN;
+        mRefreshView.removeCallbacks(mLoadPreviousTimeoutRunnable);
+        return true;
+    }
+
+    /**
+     * 加载更多有进展时调用,重新开始计算超时,用于一次加载包含多个请求的情况
+     *
+     * @param token {@link #beginLoad()}返回的令牌
+     */
+    public void renewLoad(int token) {
+        if (token == NO_TOKEN || token != mLoadToken) {
+            return;
+        }
+        mRefreshView.removeCallbacks(mLoadTimeoutRunnable);
+        if (mLoadTimeout > 0) {
+            mRefreshView.postDelayed(mLoadTimeoutRunnable, mLoadTimeout);
+        }
+    }
+
+    /**
+     * @param token {@link #beginRefresh()}返回的令牌
+     * @return 该刷新还没有结束、被取消、被新的刷新代替或者超时
+     */
+    public boolean isRefreshCurrent(int token) {
+        return token != NO_TOKEN && token == mRefreshToken;
+    }
+
+    /**
+     * @param token {@link #beginLoad()}返回的令牌
+     * @return 该加载更多还没有结束、被取消或者超时
+     */
+    public boolean isLoadCurrent(int token) {
+        return token != NO_TOKEN && token == mLoadToken;
+    }
+
+    /**
+     * 取消所有正在进行的操作,并结束刷新和加载状态
+     */
+    public void cancelAll() {
+        cancelLoad();
+        cancelLoadPrevious();
+        if (mRefreshToken != NO_TOKEN) {
+            mRefreshToken = NO_TOKEN;
+            mCancelCount++;
+            mRefreshView.removeCallbacks(mRefreshTimeoutRunnable);
+            mRefreshView.refreshComplete(false);
+        }
+    }
+
+    private void cancelLoad() {
+        if (mLoadToken != NO_TOKEN) {
+            mLoadToken = NO_TOKEN;
+            mCancelCount++;
+            mRefreshView.removeCallbacks(mLoadTimeoutRunnable);
+            mRefreshView.loadCompute();
+        }
+    }
+
+    private void cancelLoadPrevious() {
+        if (mLoadPreviousToken != NO_TOKEN) {
+            mLoadPreviousToken = NO_TOKEN;
+            mCancelCount++;
+            mRefreshView.removeCallbacks(mLoadPreviousTimeoutRunnable);
+            mRefreshView.loadPreviousComplete();
+        }
+    }
+
+    private int nextToken() {
+        mLastToken++;
+        if (mLastToken == NO_TOKEN) {
+            mLastToken++;
+        }
+        return mLastToken;
+    }
+
+    public boolean isRefreshing() {
+        return mRefreshToken != NO_TOKEN;
+    }
+
+    public boolean isLoading() {
+        return mLoadToken != NO_TOKEN;
+    }
+
+    public boolean isLoadingPrevious() {
+        return mLoadPreviousToken != NO_TOKEN;
+    }
+
+    /**
+     * @return 被取消的刷新、加载更多和加载前一页的次数
+     */
+    public int getCancelCount() {
+        return mCancelCount;
+    }
+
+    /**
+     * @return 刷新超时的次数
+     */
+    public int getRefreshTimeoutCount() {
+        return mRefreshTimeoutCount;
+    }
+
+    /**
+     * @return 加载更多和加载前一页超时的次数
+     */
+    public int getLoadTimeoutCount() {
+        return mLoadTimeoutCount;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.paging;
+
+/**
+ * 根据上次更新的时间决定一次刷新是否需要访问网络。
+ * <p>
+ * 更新时间在{@link #getFreshTime()}以内时直接跳过;在{@link #getMaxStaleTime()}以内时先结束刷新状态,
+ * 继续显示当前的数据,同时在后台重新验证;已经有刷新在进行时合并到该刷新中;其他情况正常刷新。
+ * 所有函数都需要在主线程中调用
+ * </p>
+ * Created by on 16/6/1.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class RefreshPolicy {
+    /**
+     * 正常刷新,显示刷新状态直到数据回来
+     */
+    public static final int DECISION_FETCH = 0;
+    /**
+     * 数据还很新,不访问网络,直接结束刷新状态
+     */
+    public static final int DECISION_SKIP = 1;
+    /**
+     * 继续显示当前的数据并结束刷新状态,在后台重新验证
+     */
+    public static final int DECISION_SERVE_STALE_REVALIDATE = 2;
+    /**
+     * 已经有刷新在进行,等它完成即可
+     */
+    public static final int DECISION_COALESCE = 3;
+
+    private final long mFreshTime;
+    private final long mMaxStaleTime;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mCoalesceCount;
+
+    /**
+     * @param freshTime    更新后多长时间(毫秒)内数据被认为是新的,不需要访问网络
+     * @param maxStaleTime 更新后多长时间(毫秒)内可以先显示旧的数据再在后台验证,不小于freshTime
+     */
+    public RefreshPolicy(long freshTime, long maxStaleTime) {
+        if (freshTime < 0 || maxStaleTime < freshTime) {
+            throw new IllegalArgumentException("require 0 <= freshTime <= maxStaleTime");
+        }
+        mFreshTime = freshTime;
+        mMaxStaleTime = maxStaleTime;
+    }
+
+    /**
+     * 决定这次刷新怎么处理,并更新计数
+     *
+     * @param lastUpdateTime  上次更新的时间,为0时表示还没有更新过
+     * @param now             现在的时间,和lastUpdateTime同一时基
+     * @param hasContent      当前是否有可以显示的数据
+     * @param refreshInFlight 是否已经有刷新在进行
+     * @return {@link #DECISION_FETCH}, {@link #DECISION_SKIP},
+     * {@link #DECISION_SERVE_STALE_REVALIDATE}或者{@link #DECISION_COALESCE}
+     */
+    public int decide(long lastUpdateTime, long now, boolean hasContent, boolean refreshInFlight) {
+        if (refreshInFlight) {
+            mCoalesceCount++;
+            return DECISION_COALESCE;
+        }
+        long age = now - lastUpdateTime;
+        if (!hasContent || lastUpdateTime <= 0 || age < 0 || age >= mMaxStaleTime) {
+            mMissCount++;
+            return DECISION_FETCH;
+        }
+        mHitCount++;
+        return age < mFreshTime ? DECISION_SKIP : DECISION_SERVE_STALE_REVALIDATE;
+    }
+
+    public long getFreshTime() {
+        return mFreshTime;
+    }
+
+    public long getMaxStaleTime() {
+        return mMaxStaleTime;
+    }
+
+    /**
+     * @return 直接使用当前数据的次数,包括跳过和后台验证
+     */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return 需要等待网络的次数
+     */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return 合并到正在进行的刷新中的次数
+     */
+    public int getCoalesceCount() {
+        return mCoalesceCount;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.paging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 把第一页数据和它的更新时间保存到一个紧凑的二进制文件中,下次启动时先显示缓存的数据,同时进行真正的刷新。
+ * <p>
+ * 文件格式: 魔数、版本、更新时间、条目数、数据长度、数据的CRC32,然后是由{@link Codec}编码的条目。
+ * 读取时把文件映射到内存中解码,写入时先写临时文件再重命名,写到一半时崩溃也不会破坏旧的快照。
+ * {@link #load()}和{@link #save(List, long)}都会读写文件,一般在后台线程中调用;冷启动时可以在主线程中读取较小的快照
+ * </p>
+ * Created by on 16/5/31.
+ *
+ * @param <E> 条目数据的类型
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class SnapshotStore<E> {
+    private static final int MAGIC = 0x52534e50;
+    private static final int VERSION = 1;
+    /**
+     * 文件头的长度: 魔数、版本、更新时间、条目数、数据长度、CRC32
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 8;
+
+    private final File mFile;
+    private final Codec<E> mCodec;
+
+    /**
+     * @param file  快照文件
+     * @param codec 条目的编码和解码
+     */
+    public SnapshotStore(File file, Codec<E> codec) {
+        mFile = file;
+        mCodec = codec;
+    }
+
+    /**
+     * 读取快照,文件不存在、格式不对或者已经损坏时返回null
+     *
+     * @return 快照
+     * @throws IOException 读取失败
+     */
+    public synchronized Snapshot<E> load() throws IOException {
+        if (!mFile.isFile() || mFile.length() < HEADER_SIZE) {
+            return null;
+        }
+        RandomAccessFile file = new RandomAccessFile(mFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long updateTime = buffer.getLong();
+            int count = buffer.getInt();
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (count < 0 || length < 0 || length != buffer.remaining()) {
+                return null;
+            }
+
+            ByteBuffer body = buffer.slice();
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[Math.min(length, 8192)];
+            while (body.hasRemaining()) {
+                int size = Math.min(chunk.length, body.remaining());
+                body.get(chunk, 0, size);
+                crc.update(chunk, 0, size);
+            }
+            if (crc.getValue() != checksum) {
+                return null;
+            }
+
+            body.rewind();
+            DataInput in = new DataInputStream(new ByteBufferInputStream(body));
+            List<E> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(mCodec.decode(in));
+            }
+            return new Snapshot<>(items, updateTime);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * 保存快照,替换旧的快照
+     *
+     * @param items      条目,保存期间不能被修改
+     * @param updateTime 更新时间,{@link System#currentTimeMillis()}时基
+     * @throws IOException 写入失败
+     */
+    public synchronized void save(List<E> items, long updateTime) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < items.size(); i++) {
+            mCodec.encode(items.get(i), out);
+        }
+        out.flush();
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(updateTime)
+                .putInt(items.size())
+                .putInt(body.length)
+                .putLong(crc.getValue());
+        header.flip();
+
+        File temp = new File(mFile.getPath() + ".tmp");
+        RandomAccessFile file = new RandomAccessFile(temp, "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            channel.truncate(0);
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(body)};
+            long total = HEADER_SIZE + body.length;
+            long written = 0;
+            while (written < total) {
+                written += channel.write(buffers);
+            }
+            channel.force(false);
+        } finally {
+            file.close();
+        }
+        if (!temp.renameTo(mFile)) {
+            temp.delete();
+            throw new IOException("Failed to replace snapshot " + mFile);
+        }
+    }
+
+    /**
+     * 删除快照
+     */
+    public synchronized void clear() {
+        mFile.delete();
+    }
+
+    /**
+     * 读取的快照
+     *
+     * @param <E> 条目数据的类型
+     */
+    public static class Snapshot<E> {
+        private final List<E> mItems;
+        private final long mUpdateTime;
+
+        Snapshot(List<E> items, long updateTime) {
+            mItems = Collections.unmodifiableList(items);
+            mUpdateTime = updateTime;
+        }
+
+        public List<E> getItems() {
+            return mItems;
+        }
+
+        /**
+         * @return 保存快照时的更新时间
+         */
+        public long getUpdateTime() {
+            return mUpdateTime;
+        }
+    }
+
+    /**
+     * 条目的编码和解码,只需要写入显示第一页需要的字段
+     *
+     * @param <E> 条目数据的类型
+     */
+    public interface Codec<E> {
+        void encode(E item, DataOutput out) throws IOException;
+
+        E decode(DataInput in) throws IOException;
+    }
+
+    /**
+     * 从{@link ByteBuffer}中读取的输入流,不复制数据
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer mBuffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return mBuffer.hasRemaining() ? mBuffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, mBuffer.remaining());
+            mBuffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return mBuffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.trace;
+
+/**
+ * 刷新组件的跟踪接口,用来记录触摸事件和状态变化。默认没有设置跟踪器,触摸路径上不会有任何额外的开销。
+ * <p>
+ * 实现类的{@link #trace(int, long, int, int)}会在每一个触摸事件中被调用,不能分配对象,也不能执行I/O操作
+ * </p>
+ * Created by on 16/5/20.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public interface RefreshTracer {
+    /**
+     * onInterceptTouchEvent()收到的事件,arg1为action,arg2为原始Y坐标
+     */
+    int EVENT_INTERCEPT = 1;
+    /**
+     * onTouchEvent()收到的事件,arg1为action,arg2为原始Y坐标
+     */
+    int EVENT_TOUCH = 2;
+    /**
+     * 刷新状态发生变化,arg1为新的状态,arg2为当前的Y轴滚动值
+     */
+    int EVENT_STATUS = 3;
+    /**
+     * Header View中的箭头旋转,arg1为当前状态,arg2为1时表示箭头向上
+     */
+    int EVENT_ARROW = 4;
+
+    /**
+     * 记录一个事件
+     *
+     * @param event      事件类型,如{@link #EVENT_TOUCH}
+     * @param timeMillis 事件发生的时间,与{@link android.os.SystemClock#uptimeMillis()}同一时基
+     * @param arg1       事件参数1
+     * @param arg2       事件参数2
+     */
+    void trace(int event, long timeMillis, int arg1, int arg2);
+}
@@ -0,0 +1,170 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.trace;
+
+import android.util.Printer;
+
+/**
+ * 使用固定大小的基本类型环形缓冲区记录事件的跟踪器,记录事件时不分配任何对象,缓冲区满了以后覆盖最旧的事件。
+ * <p>
+ * 该类不是线程安全的,记录和导出都应该在主线程中进行
+ * </p>
+ * Created by on 16/5/20.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class RingBufferTracer implements RefreshTracer {
+    /**
+     * 默认的缓冲区大小
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final long[] mTimes;
+    private final int[] mEvents;
+    private final int[] mArgs1;
+    private final int[] mArgs2;
+    /**
+     * 缓冲区大小减1,缓冲区大小为2的幂,用位运算代替取模
+     */
+    private final int mMask;
+    /**
+     * 一共记录过的事件数量
+     */
+    private long mCount;
+
+    public RingBufferTracer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 缓冲区能保存的事件数,会向上取整为2的幂
+     */
+    public RingBufferTracer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mTimes = new long[size];
+        mEvents = new int[size];
+        mArgs1 = new int[size];
+        mArgs2 = new int[size];
+        mMask = size - 1;
+    }
+
+    @Override
+    public void trace(int event, long timeMillis, int arg1, int arg2) {
+        int index = (int) (mCount & mMask);
+        mTimes[index] = timeMillis;
+        mEvents[index] = event;
+        mArgs1[index] = arg1;
+        mArgs2[index] = arg2;
+        mCount++;
+    }
+
+    /**
+     * @return 缓冲区能保存的事件数
+     */
+    public int getCapacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * @return 缓冲区中当前保存的事件数
+     */
+    public int size() {
+        return (int) Math.min(mCount, mMask + 1);
+    }
+
+    /**
+     * @return 一共记录过的事件数,包括已经被覆盖的事件
+     */
+    public long getTotalCount() {
+        return mCount;
+    }
+
+    /**
+     * 清空缓冲区
+     */
+    public void clear() {
+        mCount = 0;
+    }
+
+    /**
+     * 按照从旧到新的顺序导出缓冲区中的事件,每个事件输出一行
+     *
+     * @param printer 输出目标,比如{@code new LogPrinter(Log.DEBUG, TAG)}
+     */
+    public void dump(Printer printer) {
+        int size = size();
+        printer.println("RingBufferTracer: " + size + " of " + mCount + " events");
+        StringBuilder builder = new StringBuilder();
+        for (long i = mCount - size; i < mCount; i++) {
+            int index = (int) (i & mMask);
+            builder.setLength(0);
+            builder.append(mTimes[index]).append(' ')
+                    .append(eventName(mEvents[index])).append(' ')
+                    .append(mArgs1[index]).append(' ')
+                    .append(mArgs2[index]);
+            printer.println(builder.toString());
+        }
+    }
+
+    private static String eventName(int event) {
+        switch (event) {
+            case EVENT_INTERCEPT:
+                return "intercept";
+            case EVENT_TOUCH:
+                return "touch";
+            case EVENT_STATUS:
+                return "status";
+            case EVENT_ARROW:
+                return "arrow";
+            default:
+                return "event" + event;
+        }
+    }
+}
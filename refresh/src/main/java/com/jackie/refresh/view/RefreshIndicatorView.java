@@ -0,0 +1,315 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ *             $                                                   $
+ *             $                       _oo0oo_                     $
+ *             $                      o8888888o                    $
+ *             $                      88" . "88                    $
+ *             $                      (| -_- |)                    $
+ *             $                      0\  =  /0                    $
+ *             $                    ___/`-_-'\___                  $
+ *             $                  .' \\|     |$ '.                 $
+ *             $                 / \\|||  :  |||$ \                $
+ *             $                / _||||| -:- |||||- \              $
+ *             $               |   | \\\  -  $/ |   |              $
+ *             $               | \_|  ''\- -/''  |_/ |             $
+ *             $               \  .-\__  '-'  ___/-. /             $
+ *             $             ___'. .'  /-_._-\  `. .'___           $
+ *             $          ."" '<  `.___\_<|>_/___.' >' "".         $
+ *             $         | | :  `- \`.;`\ _ /`;.`/ - ` : | |       $
+ *             $         \  \ `_.   \_ __\ /__ _/   .-` /  /       $
+ *             $     =====`-.____`.___ \_____/___.-`___.-'=====    $
+ *             $                       `=-_-='                     $
+ *             $     ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~   $
+ *             $                                                   $
+ *             $          Buddha bless         Never BUG           $
+ *             $                                                   $
+ *             $$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$
+ */
+
+package com.jackie.refresh.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.view.View;
+
+import com.jackie.refresh.R;
+
+/**
+ * 直接在Canvas上绘制箭头、进度圈和提示文字的下拉刷新指示器。
+ * <p>
+ * 没有子视图,箭头的角度由下拉进度{@link #setProgress(float)}决定,
+ * 状态和文字的变化只会重绘,不会触发{@link #requestLayout()}。
+ * 提示文字在创建时就测量好,拖动过程中不再测量和分配对象。
+ * </p>
+ * Created by on 16/5/26.
+ *
+ * @author Jackie Zhu
+ * @version 1.0
+ */
+public class RefreshIndicatorView extends View {
+    /**
+     * 下拉刷新,箭头向下
+     */
+    public static final int STATE_PULL = 0;
+    /**
+     * 松开即可刷新,箭头向上
+     */
+    public static final int STATE_RELEASE = 1;
+    /**
+     * 刷新中,显示进度圈
+     */
+    public static final int STATE_REFRESHING = 2;
+
+    /**
+     * 默认的颜色,和{@code android.R.color.darker_gray}一致
+     */
+    private static final int DEFAULT_COLOR = 0xFFAAAAAA;
+    /**
+     * 进度圈转一圈的时间
+     */
+    private static final long SPINNER_PERIOD_MILLIS = 800;
+    /**
+     * 进度圈的弧度
+     */
+    private static final float SPINNER_SWEEP_DEGREES = 270f;
+    /**
+     * 箭头开始翻转的下拉进度,到{@link #ARROW_FLIP_END}时翻转完成
+     */
+    private static final float ARROW_FLIP_START = 0.85f;
+    private static final float ARROW_FLIP_END = 1.15f;
+
+    private final Paint mTipsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTimePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mIconPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mArrowPath = new Path();
+    private final RectF mSpinnerBounds = new RectF();
+
+    /**
+     * 每个状态的提示文字,下标为状态值
+     */
+    private final String[] mTips = new String[3];
+    /**
+     * 提示文字预先测量好的宽度
+     */
+    private final float[] mTipsWidths = new float[3];
+    private String mTimeText;
+    private float mTimeWidth;
+
+    /**
+     * 图标的大小
+     */
+    private final float mIconSize;
+    /**
+     * 图标到左边的距离
+     */
+    private final float mIconMarginLeft;
+    /**
+     * 两行文字之间的间距
+     */
+    private final float mLineSpacing;
+
+    private int mState = STATE_PULL;
+    private float mProgress;
+
+    public RefreshIndicatorView(Context context) {
+        this(context, null);
+    }
+
+    public RefreshIndicatorView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        mIconSize = 24 * metrics.density;
+        mIconMarginLeft = 80 * metrics.density;
+        mLineSpacing = 5 * metrics.density;
+
+        mTipsPaint.setColor(DEFAULT_COLOR);
+        mTipsPaint.setTextSize(15 * metrics.scaledDensity);
+        mTipsPaint.setFakeBoldText(true);
+        mTipsPaint.setTextAlign(Paint.Align.LEFT);
+        mTimePaint.setColor(DEFAULT_COLOR);
+        mTimePaint.setTextSize(13 * metrics.scaledDensity);
+        mTimePaint.setTextAlign(Paint.Align.LEFT);
+        mIconPaint.setColor(DEFAULT_COLOR);
+        mIconPaint.setStyle(Paint.Style.STROKE);
+        mIconPaint.setStrokeCap(Paint.Cap.ROUND);
+        mIconPaint.setStrokeWidth(2 * metrics.density);
+
+        setTip(STATE_PULL, getResources().getString(R.string.txt_pull_to_refresh));
+        setTip(STATE_RELEASE, getResources().getString(R.string.up_to_refresh));
+        setTip(STATE_REFRESHING, getResources().getString(R.string.txt_tip_refreshing));
+
+        // 以(0, 0)为中心的向下箭头,绘制时再平移和旋转
+        float half = mIconSize / 2;
+        mArrowPath.moveTo(0, -half);
+        mArrowPath.lineTo(0, half);
+        mArrowPath.moveTo(-half / 2, half / 2);
+        mArrowPath.lineTo(0, half);
+        mArrowPath.lineTo(half / 2, half / 2);
+    }
+
+    /**
+     * 设置某个状态的提示文字
+     *
+     * @param state 状态,比如{@link #STATE_PULL}
+     * @param tip   提示文字
+     */
+    public void setTip(int state, String tip) {
+        mTips[state] = tip;
+        mTipsWidths[state] = tip == null ? 0 : mTipsPaint.measureText(tip);
+        if (state == mState) {
+            invalidate();
+        }
+    }
+
+    /**
+     * 设置第二行显示的时间文字,在刷新结束时调用,不要在拖动过程中调用
+     *
+     * @param timeText 时间文字,为null时不显示
+     */
+    public void setTimeText(String timeText) {
+        if (timeText == null ? mTimeText == null : timeText.equals(mTimeText)) {
+            return;
+        }
+        mTimeText = timeText;
+        mTimeWidth = timeText == null ? 0 : mTimePaint.measureText(timeText);
+        invalidate();
+    }
+
+    /**
+     * 设置箭头、进度圈和文字的颜色
+     *
+     * @param color 颜色
+     */
+    public void setColor(int color) {
+        mTipsPaint.setColor(color);
+        mTimePaint.setColor(color);
+        mIconPaint.setColor(color);
+        invalidate();
+    }
+
+    /**
+     * 设置当前状态
+     *
+     * @param state {@link #STATE_PULL}, {@link #STATE_RELEASE}或者{@link #STATE_REFRESHING}
+     */
+    public void setState(int state) {
+        if (mState == state) {
+            return;
+        }
+        mState = state;
+        invalidate();
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * 设置下拉进度,1表示刚好达到松开即可刷新的距离
+     *
+     * @param progress 下拉进度
+     */
+    public void setProgress(float progress) {
+        if (mProgress == progress) {
+            return;
+        }
+        mProgress = progress;
+        // 刷新中进度圈自己驱动重绘,箭头不可见
+        if (mState != STATE_REFRESHING) {
+            invalidate();
+        }
+    }
+
+    public float getProgress() {
+        return mProgress;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        float tipsHeight = mTipsPaint.descent() - mTipsPaint.ascent();
+        float timeHeight = mTimePaint.descent() - mTimePaint.ascent();
+        int contentHeight = (int) Math.ceil(Math.max(mIconSize,
+                tipsHeight + mLineSpacing + timeHeight));
+        int height = contentHeight + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int top = getPaddingTop();
+        int bottom = getHeight() - getPaddingBottom();
+        float centerY = (top + bottom) / 2f;
+        float iconCenterX = getPaddingLeft() + mIconMarginLeft + mIconSize / 2;
+
+        if (mState == STATE_REFRESHING) {
+            drawSpinner(canvas, iconCenterX, centerY);
+        } else {
+            drawArrow(canvas, iconCenterX, centerY);
+        }
+        drawTexts(canvas, centerY);
+    }
+
+    private void drawArrow(Canvas canvas, float centerX, float centerY) {
+        float fraction = (mProgress - ARROW_FLIP_START) / (ARROW_FLIP_END - ARROW_FLIP_START);
+        fraction = Math.max(0f, Math.min(1f, fraction));
+        int count = canvas.save();
+        canvas.translate(centerX, centerY);
+        canvas.rotate(180f * fraction, 0, 0);
+        canvas.drawPath(mArrowPath, mIconPaint);
+        canvas.restoreToCount(count);
+    }
+
+    private void drawSpinner(Canvas canvas, float centerX, float centerY) {
+        float radius = mIconSize / 2 - mIconPaint.getStrokeWidth();
+        mSpinnerBounds.set(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+        float startAngle = 360f * (getDrawingTime() % SPINNER_PERIOD_MILLIS)
+                / SPINNER_PERIOD_MILLIS;
+        canvas.drawArc(mSpinnerBounds, startAngle, SPINNER_SWEEP_DEGREES, false, mIconPaint);
+        // 刷新中持续转动,状态改变后自然停止
+        ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    private void drawTexts(Canvas canvas, float centerY) {
+        String tip = mTips[mState];
+        float centerX = (getPaddingLeft() + getWidth() - getPaddingRight()) / 2f;
+        if (mTimeText == null) {
+            if (tip != null) {
+                float baseline = centerY - (mTipsPaint.descent() + mTipsPaint.ascent()) / 2;
+                canvas.drawText(tip, centerX - mTipsWidths[mState] / 2, baseline, mTipsPaint);
+            }
+            return;
+        }
+
+        float tipsHeight = mTipsPaint.descent() - mTipsPaint.ascent();
+        float timeHeight = mTimePaint.descent() - mTimePaint.ascent();
+        float textTop = centerY - (tipsHeight + mLineSpacing + timeHeight) / 2;
+        if (tip != null) {
+            canvas.drawText(tip, centerX - mTipsWidths[mState] / 2, textTop - mTipsPaint.ascent(),
+                    mTipsPaint);
+        }
+        float timeTop = textTop + tipsHeight + mLineSpacing;
+        canvas.drawText(mTimeText, centerX - mTimeWidth / 2, timeTop - mTimePaint.ascent(),
+                mTimePaint);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.jackie.refresh;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 统计当前线程分配的内存,用于检查动画和拖动的代码路径在稳定状态下不分配对象。
+ * 依赖HotSpot的{@link com.sun.management.ThreadMXBean},不支持时{@link #isSupported()}返回false
+ */
+public final class AllocationMeter {
+    private final com.sun.management.ThreadMXBean mThreadMXBean;
+    private final long mThreadId = Thread.currentThread().getId();
+    /**
+     * 读取一次分配量本身分配的内存
+     */
+    private long mOverhead;
+    private long mStart;
+
+    public AllocationMeter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            mThreadMXBean = (com.sun.management.ThreadMXBean) bean;
+            mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+            calibrate();
+        } else {
+            mThreadMXBean = null;
+        }
+    }
+
+    public boolean isSupported() {
+        return mThreadMXBean != null;
+    }
+
+    /**
+     * 开始统计
+     */
+    public void start() {
+        mStart = read();
+    }
+
+    /**
+     * @return 从{@link #start()}到现在当前线程分配的字节数
+     */
+    public long stop() {
+        long end = read();
+        return Math.max(0, end - mStart - mOverhead);
+    }
+
+    private void calibrate() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long start = read();
+            overhead = Math.min(overhead, read() - start);
+        }
+        mOverhead = overhead;
+    }
+
+    private long read() {
+        return mThreadMXBean.getThreadAllocatedBytes(mThreadId);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.jackie.refresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用合成的触摸坐标序列回放拖动过程,检查滚动位置和状态的计算
+ */
+public class PullTrackerTest {
+    /**
+     * 布局的上边距,下拉时不能越过的位置
+     */
+    private static final int PADDING_TOP = 0;
+    /**
+     * Header View的高度,也就是隐藏Header View时的滚动位置
+     */
+    private static final int INIT_SCROLL_Y = 480;
+
+    @Test
+    public void pull_clampsToRange() throws Exception {
+        PullTracker tracker = newTracker();
+        // 下拉不能越过Header View的顶部
+        assertEquals(10, tracker.pull(20, 10));
+        assertEquals(5, tracker.pull(5, 10));
+        // 上拉不能越过初始位置
+        assertEquals(INIT_SCROLL_Y, tracker.pull(INIT_SCROLL_Y - 10, -10));
+        assertEquals(INIT_SCROLL_Y - 5, tracker.pull(INIT_SCROLL_Y - 5, -10));
+        assertEquals(100, tracker.pull(100, 0));
+    }
+
+    @Test
+    public void statusFor_followsHalfHeader() throws Exception {
+        PullTracker tracker = newTracker();
+        assertEquals(RefreshLayoutBase.STATUS_IDLE, tracker.statusFor(INIT_SCROLL_Y));
+        assertEquals(RefreshLayoutBase.STATUS_PULL_TO_REFRESH, tracker.statusFor(INIT_SCROLL_Y - 1));
+        assertEquals(RefreshLayoutBase.STATUS_PULL_TO_REFRESH,
+                tracker.statusFor(INIT_SCROLL_Y / 2 + 1));
+        assertEquals(RefreshLayoutBase.STATUS_RELEASE_TO_REFRESH,
+                tracker.statusFor(INIT_SCROLL_Y / 2 - 1));
+        assertEquals(RefreshLayoutBase.STATUS_RELEASE_TO_REFRESH, tracker.statusFor(1));
+    }
+
+    @Test
+    public void replay_flipsStatusAroundThreshold() throws Exception {
+        DragReplay replay = new DragReplay(newTracker());
+        replay.replay(wiggleSequence());
+
+        // 越过阈值4次再回到阈值以内4次,最后回到初始位置
+        assertEquals(INIT_SCROLL_Y, replay.mScrollY);
+        assertEquals(RefreshLayoutBase.STATUS_IDLE, replay.mStatus);
+        assertEquals(10, replay.mTransitions);
+    }
+
+    private static PullTracker newTracker() {
+        PullTracker tracker = new PullTracker();
+        tracker.setRange(PADDING_TOP, INIT_SCROLL_Y);
+        return tracker;
+    }
+
+    /**
+     * 手指的Y坐标:按下后慢慢下拉到阈值附近,在阈值两边来回拖动,然后推回去
+     */
+    private static int[] wiggleSequence() {
+        int threshold = INIT_SCROLL_Y / 2;
+        int[] sequence = new int[200];
+        int start = 100;
+        int index = 0;
+        sequence[index++] = start;
+        // 第一次移动5像素,之后每次10像素,来回拖动时不会正好停在阈值上
+        int y = start + 5;
+        sequence[index++] = y;
+        // 下拉到阈值之前
+        while (y < start + threshold - 20) {
+            y += 10;
+            sequence[index++] = y;
+        }
+        // 在阈值两边来回拖动4次
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                y += 10;
+                sequence[index++] = y;
+            }
+            for (int j = 0; j < 4; j++) {
+                y -= 10;
+                sequence[index++] = y;
+            }
+        }
+        // 推回去,超过初始位置的部分被忽略
+        y -= 5;
+        sequence[index++] = y;
+        while (y > 0) {
+            y -= 10;
+            sequence[index++] = y;
+        }
+        int[] result = new int[index];
+        System.arraycopy(sequence, 0, result, 0, index);
+        return result;
+    }
+
+    /**
+     * 只把坐标序列交给{@link PullTracker},检查滚动位置和状态的计算。布局真正的触摸处理和分配
+     * 由androidTest中的RefreshLayoutDragTest检查
+     */
+    private static class DragReplay {
+        private final PullTracker mTracker;
+        private int mScrollY = INIT_SCROLL_Y;
+        private int mStatus = RefreshLayoutBase.STATUS_IDLE;
+        private int mTransitions;
+
+        DragReplay(PullTracker tracker) {
+            mTracker = tracker;
+        }
+
+        void replay(int[] rawY) {
+            mScrollY = INIT_SCROLL_Y;
+            mStatus = RefreshLayoutBase.STATUS_IDLE;
+            mTransitions = 0;
+            // ACTION_DOWN
+            int lastY = rawY[0];
+            for (int i = 1; i < rawY.length; i++) {
+                // ACTION_MOVE
+                int offset = rawY[i] - lastY;
+                mScrollY = mTracker.pull(mScrollY, offset);
+                int status = mTracker.statusFor(mScrollY);
+                if (status != mStatus) {
+                    mStatus = status;
+                    mTransitions++;
+                }
+                lastY = rawY[i];
+            }
+        }
+    }
+}
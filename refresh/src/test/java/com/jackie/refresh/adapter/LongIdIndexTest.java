@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.jackie.refresh.adapter;
+
+import com.jackie.refresh.AllocationMeter;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用随机的写入、删除和清空操作与{@link HashMap}对照,检查去重索引的结果、哈希冲突和分配
+ */
+public class LongIdIndexTest {
+    @Test
+    public void putIfAbsent_keepsFirstValue() throws Exception {
+        LongIdIndex index = new LongIdIndex();
+        assertEquals(LongIdIndex.NO_VALUE, index.putIfAbsent(42L, 0));
+        assertEquals(0, index.putIfAbsent(42L, 1));
+        assertEquals(0, index.get(42L));
+        index.put(42L, 3);
+        assertEquals(3, index.get(42L));
+        assertEquals(1, index.size());
+        assertEquals(LongIdIndex.NO_VALUE, index.get(43L));
+    }
+
+    @Test
+    public void clear_forgetsAllIds() throws Exception {
+        LongIdIndex index = new LongIdIndex();
+        for (long id = 0; id < 100; id++) {
+            index.put(id, (int) id);
+        }
+        index.clear();
+        assertEquals(0, index.size());
+        for (long id = 0; id < 100; id++) {
+            assertFalse(index.contains(id));
+        }
+        assertEquals(LongIdIndex.NO_VALUE, index.putIfAbsent(7L, 1));
+        assertEquals(1, index.get(7L));
+    }
+
+    @Test
+    public void collidingIds_surviveRemoval() throws Exception {
+        LongIdIndex index = new LongIdIndex();
+        // 高32位和低32位相同的ID异或后都是0,全部落在同一个槽上,形成一条很长的探测链
+        for (int i = 0; i < 64; i++) {
+            assertEquals(LongIdIndex.NO_VALUE, index.putIfAbsent(collidingId(i), i));
+        }
+        // 删除链中间的ID后,后面的ID需要前移,仍然能被找到
+        for (int i = 0; i < 64; i += 3) {
+            assertEquals(i, index.remove(collidingId(i)));
+        }
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i % 3 == 0 ? LongIdIndex.NO_VALUE : i, index.get(collidingId(i)));
+        }
+        assertEquals(42, index.size());
+        assertEquals(LongIdIndex.NO_VALUE, index.putIfAbsent(collidingId(3), 100));
+        assertEquals(100, index.get(collidingId(3)));
+    }
+
+    private static long collidingId(int i) {
+        return (i - 32) * 0x100000001L;
+    }
+
+    @Test
+    public void randomOperations_matchHashMap() throws Exception {
+        LongIdIndex index = new LongIdIndex();
+        HashMap<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(2016);
+        // 像服务端生成的ID一样分布在整个long范围内,包括负数;数量不多,保证经常删除和重新写入已有的ID
+        long[] ids = new long[512];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextLong();
+        }
+        for (int i = 0; i < 200000; i++) {
+            long id = ids[random.nextInt(ids.length)];
+            int operation = random.nextInt(100);
+            if (operation < 50) {
+                Integer previous = expected.get(id);
+                if (previous == null) {
+                    expected.put(id, i);
+                }
+                assertEquals(previous == null ? LongIdIndex.NO_VALUE : previous,
+                        index.putIfAbsent(id, i));
+            } else if (operation < 90) {
+                Integer removed = expected.remove(id);
+                assertEquals(removed == null ? LongIdIndex.NO_VALUE : removed, index.remove(id));
+            } else if (operation < 91) {
+                expected.clear();
+                index.clear();
+            } else {
+                Integer value = expected.get(id);
+                assertEquals(value == null ? LongIdIndex.NO_VALUE : value, index.get(id));
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        for (Long id : expected.keySet()) {
+            assertEquals((int) expected.get(id), index.get(id));
+        }
+    }
+
+    @Test
+    public void reuse_allocatesNothingAfterWarmUp() throws Exception {
+        AllocationMeter meter = new AllocationMeter();
+        if (!meter.isSupported()) {
+            return;
+        }
+        LongIdIndex index = new LongIdIndex();
+        // 预热,并让容量增长到足够大
+        for (int i = 0; i < 2000; i++) {
+            mergePages(index);
+        }
+
+        meter.start();
+        for (int i = 0; i < 1000; i++) {
+            mergePages(index);
+        }
+        long allocated = meter.stop();
+        assertEquals("bytes allocated while merging", 0, allocated);
+    }
+
+    /**
+     * 模拟一次刷新后追加两页,第二页和第一页有一半重叠
+     */
+    private static void mergePages(LongIdIndex index) {
+        index.clear();
+        for (int i = 0; i < 200; i++) {
+            index.putIfAbsent(1000L + i, 0);
+        }
+        int duplicates = 0;
+        for (int i = 100; i < 300; i++) {
+            if (index.putIfAbsent(1000L + i, 1) != LongIdIndex.NO_VALUE) {
+                duplicates++;
+            }
+        }
+        assertEquals(100, duplicates);
+    }
+}
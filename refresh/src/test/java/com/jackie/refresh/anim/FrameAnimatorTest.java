@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2016 The Open Source Project of Jackie Zhu
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.jackie.refresh.anim;
+
+import com.jackie.refresh.AllocationMeter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 箭头旋转动画的测试,用手动调度的帧驱动{@link FrameAnimator}
+ */
+public class FrameAnimatorTest {
+    private static final long FRAME_NANOS = 16666667L;
+
+    @Test
+    public void decelerate_reachesTarget() throws Exception {
+        ManualFrameScheduler scheduler = new ManualFrameScheduler();
+        FrameAnimator animator = new FrameAnimator(scheduler);
+        RecordingListener listener = new RecordingListener();
+        animator.setListener(listener);
+
+        animator.decelerateTo(180f, 100);
+        scheduler.runFrames(10);
+
+        assertFalse(animator.isRunning());
+        assertEquals(180f, listener.mValue, 0.001f);
+        assertEquals(1, listener.mEndCount);
+    }
+
+    @Test
+    public void retarget_continuesFromCurrentValue() throws Exception {
+        ManualFrameScheduler scheduler = new ManualFrameScheduler();
+        FrameAnimator animator = new FrameAnimator(scheduler);
+        RecordingListener listener = new RecordingListener();
+        animator.setListener(listener);
+
+        animator.decelerateTo(180f, 100);
+        scheduler.runFrames(2);
+        float flipped = listener.mValue;
+        float velocity = animator.getVelocity();
+        assertTrue(flipped > 0f && flipped < 180f);
+        assertTrue(velocity > 0f);
+
+        // 转到一半时改变方向,保留当前的速度,不会跳回起点,也不会结束后重新开始
+        animator.decelerateTo(0f, 100);
+        assertEquals(velocity, animator.getVelocity(), 0.001f);
+        scheduler.runFrames(1);
+        assertTrue(listener.mValue > 0f && listener.mValue < 180f);
+        assertTrue(animator.getVelocity() < velocity);
+        assertEquals(0, listener.mEndCount);
+        scheduler.runFrames(10);
+        assertEquals(0f, listener.mValue, 0.001f);
+        assertEquals(1, listener.mEndCount);
+    }
+
+    @Test
+    public void flippingManyTimes_allocatesNothing() throws Exception {
+        AllocationMeter meter = new AllocationMeter();
+        if (!meter.isSupported()) {
+            return;
+        }
+        ManualFrameScheduler scheduler = new ManualFrameScheduler();
+        FrameAnimator animator = new FrameAnimator(scheduler);
+        animator.setListener(new RecordingListener());
+
+        // 预热,让解释执行和编译都稳定下来
+        flip(animator, scheduler, 20000);
+
+        meter.start();
+        flip(animator, scheduler, 10000);
+        long allocated = meter.stop();
+        assertEquals("bytes allocated while flipping", 0, allocated);
+    }
+
+    /**
+     * 模拟在刷新阈值附近来回拖动,箭头在两个方向之间反复转向,偶尔转到底
+     */
+    private static void flip(FrameAnimator animator, ManualFrameScheduler scheduler, int count) {
+        for (int i = 0; i < count; i++) {
+            animator.animateTo(FrameAnimator.CURVE_DECELERATE, (i & 1) == 0 ? 180f : 0f, 0, 100);
+            scheduler.runFrames((i & 7) == 0 ? 8 : 2);
+        }
+    }
+
+    /**
+     * 手动驱动的帧调度器,只保存一个回调
+     */
+    private static class ManualFrameScheduler implements FrameScheduler {
+        private FrameCallback mCallback;
+        private long mFrameTimeNanos = FRAME_NANOS;
+
+        @Override
+        public void postFrameCallback(FrameCallback callback) {
+            mCallback = callback;
+        }
+
+        @Override
+        public void removeFrameCallback(FrameCallback callback) {
+            if (mCallback == callback) {
+                mCallback = null;
+            }
+        }
+
+        void runFrames(int count) {
+            for (int i = 0; i < count; i++) {
+                mFrameTimeNanos += FRAME_NANOS;
+                FrameCallback callback = mCallback;
+                mCallback = null;
+                if (callback != null) {
+                    callback.doFrame(mFrameTimeNanos);
+                }
+            }
+        }
+    }
+
+    private static class RecordingListener implements FrameAnimator.Listener {
+        private float mValue;
+        private int mEndCount;
+
+        @Override
+        public void onAnimationUpdate(FrameAnimator animator, float value, long frameTimeNanos) {
+            mValue = value;
+        }
+
+        @Override
+        public void onAnimationEnd(FrameAnimator animator, boolean canceled) {
+            mEndCount++;
+        }
+    }
+}